@@ -0,0 +1,127 @@
+package axl.gateway.load;
+
+import axl.gateway.metrics.LatencyHistogram;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator: requests are sent on a fixed schedule whether or not earlier ones have completed,
+ * which is how independent users behave and avoids coordinated omission.
+ */
+public class LoadGenerator implements AutoCloseable {
+
+    private final ConnectionProvider connections;
+
+    private final HttpClient client;
+
+    private final String path;
+
+    private final String validCookie;
+
+    private final String invalidCookie;
+
+    private final String cookies;
+
+    private final int maxInFlight;
+
+    public LoadGenerator(String gatewayUrl, String path, LoadTestOptions options, String validCookie, String invalidCookie) {
+        this.connections = ConnectionProvider.builder("load")
+                .maxConnections(options.connections())
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofSeconds(30))
+                .build();
+        this.client = HttpClient.create(connections)
+                .baseUrl(gatewayUrl)
+                .responseTimeout(Duration.ofSeconds(10));
+        this.path = path;
+        this.validCookie = validCookie;
+        this.invalidCookie = invalidCookie;
+        this.cookies = options.cookies();
+        this.maxInFlight = options.maxInFlight();
+    }
+
+    public LoadResult run(String name, double rate, Duration duration) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        LongAdder completed = new LongAdder();
+        LongAdder errors = new LongAdder();
+        LongAdder dropped = new LongAdder();
+        AtomicInteger inFlight = new AtomicInteger();
+
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long next = start;
+        long sent = 0;
+
+        while (next < end) {
+            long now = System.nanoTime();
+            if (now < next) {
+                LockSupport.parkNanos(next - now);
+                continue;
+            }
+
+            long intended = next;
+            next += interval;
+            sent++;
+
+            if (inFlight.get() >= maxInFlight) {
+                // the gateway is hopelessly behind, do not let the generator run out of memory
+                dropped.increment();
+                continue;
+            }
+
+            inFlight.incrementAndGet();
+            request(cookieFor(sent))
+                    .subscribe(status -> {
+                        histogram.record(System.nanoTime() - intended);
+                        completed.increment();
+                        if (status < 200 || status >= 300) errors.increment();
+                    }, error -> {
+                        histogram.record(System.nanoTime() - intended);
+                        errors.increment();
+                        inFlight.decrementAndGet();
+                    }, inFlight::decrementAndGet);
+        }
+
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        double seconds = duration.toNanos() / 1e9;
+        return new LoadResult(name, rate, completed.sum() / seconds, sent, completed.sum(), errors.sum(),
+                dropped.sum() + inFlight.get(),
+                histogram.valueAtPercentile(50), histogram.valueAtPercentile(99),
+                histogram.valueAtPercentile(99.9), histogram.valueAtPercentile(100));
+    }
+
+    private Mono<Integer> request(String cookie) {
+        HttpClient prepared = cookie == null ? client
+                : client.headers(headers -> headers.set(HttpHeaderNames.COOKIE, cookie));
+        return prepared.get()
+                .uri(path)
+                .responseSingle((response, body) -> body.then(Mono.just(response.status().code())));
+    }
+
+    private String cookieFor(long sequence) {
+        return switch (cookies) {
+            case "valid" -> validCookie;
+            case "invalid" -> invalidCookie;
+            case "mixed" -> sequence % 2 == 0 ? validCookie : null;
+            default -> null;
+        };
+    }
+
+    @Override
+    public void close() {
+        connections.disposeLater().block(Duration.ofSeconds(5));
+    }
+}
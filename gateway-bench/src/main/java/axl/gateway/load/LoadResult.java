@@ -0,0 +1,38 @@
+package axl.gateway.load;
+
+import java.util.Locale;
+
+/**
+ * Outcome of one constant-rate run. Latencies are in microseconds and measured from the intended
+ * send time, so a stalled gateway shows up in the tail instead of silently lowering the offered load.
+ */
+public record LoadResult(String name,
+                         double targetRps,
+                         double achievedRps,
+                         long sent,
+                         long completed,
+                         long errors,
+                         long dropped,
+                         long p50Micros,
+                         long p99Micros,
+                         long p999Micros,
+                         long maxMicros) {
+
+    public double errorRatio() {
+        return sent == 0 ? 0 : (double) (errors + dropped) / sent;
+    }
+
+    public boolean sustainable(LoadTestOptions options) {
+        return p99Micros <= options.sloP99Ms() * 1000
+                && errorRatio() <= options.maxErrorRatio()
+                && achievedRps >= targetRps * 0.95;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+                "%-24s target %8.0f rps, achieved %8.0f rps, errors %6.2f%%, p50 %8.2f ms, p99 %8.2f ms, p99.9 %8.2f ms, max %8.2f ms",
+                name, targetRps, achievedRps, errorRatio() * 100,
+                p50Micros / 1000.0, p99Micros / 1000.0, p999Micros / 1000.0, maxMicros / 1000.0);
+    }
+}
@@ -0,0 +1,225 @@
+package axl.gateway.load;
+
+import axl.gateway.GatewayApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * End-to-end load test of the proxy path. Starts the gateway and stub upstreams on localhost,
+ * drives open-loop traffic through the gateway and reports latency percentiles and throughput.
+ *
+ * <pre>
+ * java -cp gateway-bench/target/benchmarks.jar axl.gateway.load.LoadTest --scenario=ramp --rate=2000
+ * </pre>
+ */
+public class LoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTest.class);
+
+    private static final String SERVICE = "stub";
+
+    private static final String COOKIE = "access_token";
+
+    private static final String SECRET = "load-test-secret-load-test-secret-load-test-secret";
+
+    private final LoadTestOptions options;
+
+    private final String gatewayUrl;
+
+    private final Deque<StubUpstream> upstreams = new ArrayDeque<>();
+
+    private final AtomicInteger instances = new AtomicInteger();
+
+    private LoadTest(LoadTestOptions options, int port) {
+        this.options = options;
+        this.gatewayUrl = "http://127.0.0.1:" + port;
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        int port = freePort();
+
+        ConfigurableApplicationContext gateway = new SpringApplicationBuilder(GatewayApplication.class)
+                .properties(Map.of(
+                        "server.port", port,
+                        "jwt.access.name", COOKIE,
+                        "jwt.access.secret", SECRET,
+                        "logging.level.root", "WARN",
+                        "spring.jackson.serialization.INDENT_OUTPUT", false))
+                .run();
+
+        LoadTest test = new LoadTest(options, port);
+        try {
+            List<LoadResult> results = test.run();
+            results.forEach(System.out::println);
+            test.write(results);
+        } finally {
+            test.stopUpstreams();
+            gateway.close();
+        }
+    }
+
+    private List<LoadResult> run() {
+        for (int i = 0; i < options.upstreams(); i++) {
+            startUpstream();
+        }
+
+        String validCookie = COOKIE + "=" + Jwts.builder()
+                .subject("42")
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(2)))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+        String invalidCookie = validCookie + "x";
+
+        List<LoadResult> results = new ArrayList<>();
+        try (LoadGenerator generator = new LoadGenerator(gatewayUrl, "/" + SERVICE + "/echo", options,
+                validCookie, invalidCookie)) {
+            if (options.warmupSec() > 0) {
+                log.warn("Warming up for {} s", options.warmupSec());
+                generator.run("warmup", options.rate(), Duration.ofSeconds(options.warmupSec()));
+            }
+
+            Duration duration = Duration.ofSeconds(options.durationSec());
+            switch (options.scenario()) {
+                case "steady" -> results.add(generator.run("steady", options.rate(), duration));
+                case "ramp" -> results.addAll(ramp(generator, duration));
+                case "churn" -> results.add(withBackground(this::replaceOldest,
+                        () -> generator.run("churn", options.rate(), duration)));
+                case "expiry" -> results.add(withBackground(this::crashOldest,
+                        () -> generator.run("expiry", options.rate(), duration)));
+                default -> throw new IllegalArgumentException("Unknown scenario `" + options.scenario() + "`");
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Raises the rate step by step until latency or errors break the SLO; the last passing step is the
+     * maximum sustainable throughput.
+     */
+    private List<LoadResult> ramp(LoadGenerator generator, Duration step) {
+        List<LoadResult> results = new ArrayList<>();
+        LoadResult best = null;
+
+        for (double rate = options.rate(); ; rate *= options.rampFactor()) {
+            LoadResult result = generator.run("ramp " + Math.round(rate), rate, step);
+            results.add(result);
+            log.warn("{}", result);
+
+            if (!result.sustainable(options)) break;
+            best = result;
+        }
+
+        if (best != null) {
+            results.add(new LoadResult("max sustainable", best.targetRps(), best.achievedRps(), best.sent(),
+                    best.completed(), best.errors(), best.dropped(), best.p50Micros(), best.p99Micros(),
+                    best.p999Micros(), best.maxMicros()));
+        } else {
+            log.warn("Even {} rps is not sustainable", options.rate());
+        }
+        return results;
+    }
+
+    private LoadResult withBackground(Runnable task, Supplier<LoadResult> load) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                task.run();
+            } catch (Exception e) {
+                log.warn("Background task failed: {}", e.getMessage());
+            }
+        }, options.churnIntervalMs(), options.churnIntervalMs(), TimeUnit.MILLISECONDS);
+
+        try {
+            return load.get();
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Upstream churn: a new instance joins, then the oldest one deregisters gracefully.
+     */
+    private void replaceOldest() {
+        startUpstream();
+        StubUpstream oldest = pollOldest();
+        if (oldest != null) {
+            oldest.close();
+        }
+    }
+
+    /**
+     * Registry expiry: the oldest instance dies without deregistering and a replacement joins.
+     * Requests routed to the dead instance fail until the registry expires it after its TTL.
+     */
+    private void crashOldest() {
+        StubUpstream oldest = pollOldest();
+        if (oldest != null) {
+            oldest.crash();
+        }
+        startUpstream();
+    }
+
+    private void startUpstream() {
+        int ttl = options.scenario().equals("expiry") ? Math.min(options.ttlSeconds(), 2) : options.ttlSeconds();
+        StubUpstream upstream = new StubUpstream(gatewayUrl, SERVICE, "stub-" + instances.incrementAndGet(),
+                List.of("/" + SERVICE + "/**"), ttl, options.upstreamDelayMs())
+                .register(Duration.ofMillis(ttl * 1000L / 3));
+        synchronized (upstreams) {
+            upstreams.addLast(upstream);
+        }
+    }
+
+    private StubUpstream pollOldest() {
+        synchronized (upstreams) {
+            return upstreams.size() > 1 ? upstreams.pollFirst() : null;
+        }
+    }
+
+    private void stopUpstreams() {
+        synchronized (upstreams) {
+            upstreams.forEach(StubUpstream::close);
+            upstreams.clear();
+        }
+    }
+
+    private void write(List<LoadResult> results) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("options", options);
+        report.put("results", results);
+
+        File file = new File(options.output());
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, report);
+        System.out.println("Results written to " + file.getAbsolutePath());
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package axl.gateway.load;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Options of a load test run, parsed from {@code --key=value} arguments.
+ *
+ * @param scenario    steady, ramp, churn or expiry
+ * @param rate        requests per second, the starting rate for ramp
+ * @param durationSec length of a run, of every step for ramp
+ * @param upstreams   number of stub upstream instances
+ * @param cookies     none, valid, invalid or mixed
+ * @param sloP99Ms    p99 above which a ramp step counts as not sustainable
+ */
+public record LoadTestOptions(String scenario,
+                              double rate,
+                              int durationSec,
+                              int warmupSec,
+                              int upstreams,
+                              int upstreamDelayMs,
+                              String cookies,
+                              int connections,
+                              int maxInFlight,
+                              double sloP99Ms,
+                              double maxErrorRatio,
+                              double rampFactor,
+                              int churnIntervalMs,
+                              int ttlSeconds,
+                              String output) {
+
+    private static final Set<String> KNOWN = Set.of(
+            "scenario", "rate", "duration", "warmup", "upstreams", "upstream-delay-ms", "cookies", "connections",
+            "max-in-flight", "slo-p99-ms", "max-error-ratio", "ramp-factor", "churn-interval-ms", "ttl-seconds", "output");
+
+    public static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --key=value, got `" + arg + "`");
+            }
+            int eq = arg.indexOf('=');
+            values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+
+        LoadTestOptions options = new LoadTestOptions(
+                values.getOrDefault("scenario", "steady"),
+                Double.parseDouble(values.getOrDefault("rate", "1000")),
+                Integer.parseInt(values.getOrDefault("duration", "30")),
+                Integer.parseInt(values.getOrDefault("warmup", "10")),
+                Integer.parseInt(values.getOrDefault("upstreams", "2")),
+                Integer.parseInt(values.getOrDefault("upstream-delay-ms", "0")),
+                values.getOrDefault("cookies", "none"),
+                Integer.parseInt(values.getOrDefault("connections", "512")),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "20000")),
+                Double.parseDouble(values.getOrDefault("slo-p99-ms", "50")),
+                Double.parseDouble(values.getOrDefault("max-error-ratio", "0.01")),
+                Double.parseDouble(values.getOrDefault("ramp-factor", "1.5")),
+                Integer.parseInt(values.getOrDefault("churn-interval-ms", "2000")),
+                Integer.parseInt(values.getOrDefault("ttl-seconds", "30")),
+                values.getOrDefault("output", "load-result.json"));
+
+        values.keySet().removeAll(KNOWN);
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Unknown options: " + values.keySet());
+        }
+        return options;
+    }
+}
@@ -0,0 +1,127 @@
+package axl.gateway.load;
+
+import axl.gateway.service.ServiceDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal Netty upstream answering every request with a small JSON body.
+ * It registers itself through the regular {@code /internal/service} API and keeps heartbeating like a real service.
+ */
+public class StubUpstream implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(StubUpstream.class);
+
+    private static final String BODY = "{\"status\":\"ok\"}";
+
+    private final DisposableServer server;
+
+    private final WebClient gateway;
+
+    private final ServiceDefinition definition;
+
+    private volatile String hash;
+
+    private Disposable heartbeats;
+
+    public StubUpstream(String gatewayUrl, String service, String instanceId, List<String> routes,
+                        int ttlSeconds, int delayMs) {
+        Duration delay = Duration.ofMillis(delayMs);
+        this.server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .handle((request, response) -> {
+                    Mono<String> body = Mono.just(BODY);
+                    return response.header("Content-Type", "application/json")
+                            .sendString(delayMs > 0 ? body.delayElement(delay) : body);
+                })
+                .bindNow();
+
+        this.gateway = WebClient.create(gatewayUrl);
+        this.definition = ServiceDefinition.builder()
+                .name(service)
+                .instanceId(instanceId)
+                .routes(routes)
+                .uri("http://127.0.0.1:" + server.port())
+                .ttlSeconds(ttlSeconds)
+                .build();
+    }
+
+    public StubUpstream register(Duration heartbeatInterval) {
+        Map<?, ?> response = gateway.post()
+                .uri("/internal/service")
+                .bodyValue(definition)
+                .retrieve()
+                .bodyToMono(Map.class)
+                .block(Duration.ofSeconds(5));
+        hash = response != null ? (String) response.get("hash") : null;
+        log.debug("Stub {} registered on port {}", definition.getInstanceId(), server.port());
+
+        heartbeats = Flux.interval(heartbeatInterval, heartbeatInterval)
+                .concatMap(tick -> heartbeat().onErrorResume(e -> Mono.empty()))
+                .subscribe();
+        return this;
+    }
+
+    private Mono<Void> heartbeat() {
+        return gateway.put()
+                .uri(uri -> uri.path("/internal/service/{name}/heartbeat")
+                        .queryParam("instance", definition.getInstanceId())
+                        .queryParam("hash", hash)
+                        .build(definition.getName()))
+                .exchangeToMono(response -> {
+                    if (response.statusCode().value() == 404 || response.statusCode().value() == 409) {
+                        // expired or changed meanwhile, register again
+                        return response.releaseBody().then(gateway.post()
+                                .uri("/internal/service")
+                                .bodyValue(definition)
+                                .retrieve()
+                                .toBodilessEntity()
+                                .then());
+                    }
+                    return response.releaseBody();
+                });
+    }
+
+    /**
+     * Simulates a crashed instance: no deregistration, the registry has to expire it.
+     */
+    public void crash() {
+        stopHeartbeats();
+        server.disposeNow();
+    }
+
+    public void stopHeartbeats() {
+        if (heartbeats != null) {
+            heartbeats.dispose();
+        }
+    }
+
+    public String getInstanceId() {
+        return definition.getInstanceId();
+    }
+
+    @Override
+    public void close() {
+        stopHeartbeats();
+        gateway.delete()
+                .uri(uri -> uri.path("/internal/service/{name}")
+                        .queryParam("instance", definition.getInstanceId())
+                        .build(definition.getName()))
+                .retrieve()
+                .toBodilessEntity()
+                .onErrorResume(e -> Mono.empty())
+                .block(Duration.ofSeconds(5));
+        server.disposeNow();
+    }
+}
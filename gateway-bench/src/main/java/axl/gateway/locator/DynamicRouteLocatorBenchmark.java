@@ -0,0 +1,94 @@
+package axl.gateway.locator;
+
+import axl.gateway.service.ServiceDefinition;
+import axl.gateway.service.ServiceRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.autoconfigure.web.reactive.WebFluxProperties;
+import org.springframework.cloud.gateway.handler.predicate.PathRoutePredicateFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.server.PathContainer;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DynamicRouteLocatorBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int services;
+
+    private ServiceRegistry registry;
+
+    private PathRoutePredicateFactory pathPredicateFactory;
+
+    private DynamicRouteLocator locator;
+
+    private int changes;
+
+    private PathContainer[] paths;
+
+    @Setup
+    public void setup() {
+        registry = new ServiceRegistry(100, 600);
+        for (int i = 0; i < services; i++) {
+            registry.register(service(i, 0));
+        }
+
+        pathPredicateFactory = new PathRoutePredicateFactory(new WebFluxProperties());
+        locator = new DynamicRouteLocator(registry, pathPredicateFactory);
+        locator.getRoutes().blockLast();
+
+        paths = new PathContainer[services];
+        for (int i = 0; i < services; i++) {
+            paths[i] = PathContainer.parsePath("/api/v1/service-" + i + "/users/42");
+        }
+    }
+
+    /**
+     * Builds the whole route table from scratch, as after a restart.
+     */
+    @Benchmark
+    public List<Route> coldBuild() {
+        return new DynamicRouteLocator(registry, pathPredicateFactory).getRoutes().collectList().block();
+    }
+
+    /**
+     * Refreshes the route table after one service changed its routes.
+     */
+    @Benchmark
+    public List<Route> refreshAfterOneChange() {
+        registry.register(service(0, ++changes));
+        return locator.getRoutes().collectList().block();
+    }
+
+    /**
+     * Reads the route table when nothing changed, which is what every request does.
+     */
+    @Benchmark
+    public List<Route> unchanged() {
+        return locator.getRoutes().collectList().block();
+    }
+
+    /**
+     * Resolves a request path to its route through the path index.
+     */
+    @Benchmark
+    public Route match() {
+        return locator.getIndex().match(paths[ThreadLocalRandom.current().nextInt(paths.length)]);
+    }
+
+    private static ServiceDefinition service(int i, int generation) {
+        return ServiceDefinition.builder()
+                .name("service-" + i)
+                .uri("http://localhost:" + (9000 + i))
+                .routes(List.of("/api/v1/service-" + i + "/**", "/api/v" + (2 + generation) + "/service-" + i + "/**"))
+                .ttlSeconds(60)
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+package axl.gateway.openapi;
+
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.Operation;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+import io.swagger.v3.oas.models.media.ObjectSchema;
+import io.swagger.v3.oas.models.media.StringSchema;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+import io.swagger.v3.oas.models.responses.ApiResponses;
+import io.swagger.v3.oas.models.tags.Tag;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpenApiAggregatorBenchmark {
+
+    @Param({"10", "100", "500"})
+    private int specs;
+
+    @Param({"20"})
+    private int pathsPerSpec;
+
+    private OpenApiAggregator aggregator;
+
+    private List<OpenAPI> apis;
+
+    private MergedDocument document;
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        OpenApiProperties props = new OpenApiProperties();
+        props.setTitle("Gateway API");
+        props.setVersion("1.0");
+
+        aggregator = new OpenApiAggregator(null, props);
+
+        apis = new ArrayList<>(specs);
+        for (int i = 0; i < specs; i++) {
+            apis.add(spec(i));
+        }
+
+        document = new MergedDocument();
+        for (int i = 0; i < specs; i++) {
+            document.put("service-" + i, apis.get(i));
+        }
+    }
+
+    @Benchmark
+    public OpenAPI merge() {
+        return aggregator.merge(apis);
+    }
+
+    @Benchmark
+    public OpenAPI patchOne() {
+        // one service redeployed, the others are left as merged
+        int service = next++ % specs;
+        document.put("service-" + service, apis.get(service));
+        return document.build(new OpenAPI());
+    }
+
+    private OpenAPI spec(int service) {
+        String name = "service-" + service;
+        Paths paths = new Paths();
+        Components components = new Components();
+
+        for (int p = 0; p < pathsPerSpec; p++) {
+            String schema = name + "-entity-" + p;
+            components.addSchemas(schema, new ObjectSchema()
+                    .addProperty("id", new StringSchema())
+                    .addProperty("value", new StringSchema()));
+
+            paths.addPathItem("/api/v1/" + name + "/resource-" + p, new PathItem()
+                    .get(new Operation()
+                            .operationId(name + "-get-" + p)
+                            .addTagsItem(name)
+                            .responses(new ApiResponses().addApiResponse("200", new ApiResponse()
+                                    .description("OK")))));
+        }
+
+        return new OpenAPI()
+                .paths(paths)
+                .components(components)
+                .addTagsItem(new Tag().name(name));
+    }
+}
@@ -0,0 +1,102 @@
+package axl.gateway.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpCookie;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUserHeaderFilterBenchmark {
+
+    private static final String COOKIE = "access_token";
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret";
+
+    private static final GatewayFilterChain CHAIN = exchange -> Mono.empty();
+
+    private static final int CACHE_SIZE = 10_000;
+
+    // distinct tokens, twice as many as the cache holds, so that rotating through them always misses
+    private static final int COLD_TOKENS = 2 * CACHE_SIZE;
+
+    private JwtUserHeaderFilter filter;
+
+    private MockServerHttpRequest valid;
+
+    private MockServerHttpRequest invalid;
+
+    private MockServerHttpRequest absent;
+
+    private MockServerHttpRequest[] cold;
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        filter = new JwtUserHeaderFilter();
+        ReflectionTestUtils.setField(filter, "name", COOKIE);
+        ReflectionTestUtils.setField(filter, "accessSecret", SECRET);
+        ReflectionTestUtils.setField(filter, "cacheMaxSize", CACHE_SIZE);
+        ReflectionTestUtils.setField(filter, "cacheMaxTtlMs", 300_000L);
+        ReflectionTestUtils.setField(filter, "cacheNegativeTtlMs", 5_000L);
+        filter.init();
+
+        String token = token("42");
+
+        valid = MockServerHttpRequest.get("/api/v1/users").cookie(new HttpCookie(COOKIE, token)).build();
+        invalid = MockServerHttpRequest.get("/api/v1/users").cookie(new HttpCookie(COOKIE, token + "x")).build();
+        absent = MockServerHttpRequest.get("/api/v1/users").build();
+
+        cold = new MockServerHttpRequest[COLD_TOKENS];
+        for (int i = 0; i < COLD_TOKENS; i++) {
+            cold[i] = MockServerHttpRequest.get("/api/v1/users").cookie(new HttpCookie(COOKIE, token("user-" + i))).build();
+        }
+    }
+
+    @Benchmark
+    public Mono<Void> validCookie() {
+        return filter.filter(MockServerWebExchange.from(valid), CHAIN);
+    }
+
+    @Benchmark
+    public Mono<Void> invalidCookie() {
+        return filter.filter(MockServerWebExchange.from(invalid), CHAIN);
+    }
+
+    @Benchmark
+    public Mono<Void> absentCookie() {
+        return filter.filter(MockServerWebExchange.from(absent), CHAIN);
+    }
+
+    /**
+     * A valid token the cache has not seen, i.e. the signature is verified on every call.
+     */
+    @Benchmark
+    public Mono<Void> coldValidCookie() {
+        MockServerHttpRequest request = cold[next];
+        next = (next + 1) % COLD_TOKENS;
+        return filter.filter(MockServerWebExchange.from(request), CHAIN);
+    }
+
+    private static String token(String subject) {
+        return Jwts.builder()
+                .subject(subject)
+                .expiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1)))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
@@ -0,0 +1,95 @@
+package axl.gateway.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registrations competing with heartbeats of many instances, the steady state of a busy registry.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceRegistryBenchmark {
+
+    private static final int SERVICES = 100;
+
+    private static final int INSTANCES = 4;
+
+    private ServiceRegistry registry;
+
+    private ServiceDefinition[] definitions;
+
+    private String[] hashes;
+
+    private int generation;
+
+    @Setup
+    public void setup() {
+        registry = new ServiceRegistry(100, 600);
+        definitions = new ServiceDefinition[SERVICES * INSTANCES];
+        hashes = new String[definitions.length];
+
+        for (int i = 0; i < definitions.length; i++) {
+            definitions[i] = definition(i / INSTANCES, i % INSTANCES, 0);
+            registry.register(definitions[i]);
+            hashes[i] = ServiceInstance.hashOf(definitions[i]);
+        }
+    }
+
+    /**
+     * Re-registration of an unchanged definition, which older clients use as a heartbeat.
+     */
+    @Benchmark
+    @Group("register")
+    @GroupThreads(1)
+    public boolean registerUnchanged() {
+        return registry.register(definitions[ThreadLocalRandom.current().nextInt(definitions.length)]);
+    }
+
+    @Benchmark
+    @Group("register")
+    @GroupThreads(3)
+    public Heartbeat.Status registerHeartbeats() {
+        return heartbeat();
+    }
+
+    /**
+     * Registration that changes the routes of a service and publishes a new snapshot.
+     */
+    @Benchmark
+    @Group("update")
+    @GroupThreads(1)
+    public boolean registerChanged() {
+        int i = ThreadLocalRandom.current().nextInt(definitions.length);
+        return registry.register(definition(i / INSTANCES, i % INSTANCES, ++generation));
+    }
+
+    @Benchmark
+    @Group("update")
+    @GroupThreads(3)
+    public Heartbeat.Status updateHeartbeats() {
+        return heartbeat();
+    }
+
+    private Heartbeat.Status heartbeat() {
+        int i = ThreadLocalRandom.current().nextInt(definitions.length);
+        ServiceDefinition definition = definitions[i];
+        return registry.heartbeat(definition.getName(), definition.getInstanceId(), hashes[i]);
+    }
+
+    private static ServiceDefinition definition(int service, int instance, int generation) {
+        return ServiceDefinition.builder()
+                .name("service-" + service)
+                .instanceId("instance-" + instance)
+                .uri("http://10.0.0." + instance + ":" + (9000 + service))
+                .routes(List.of("/api/v1/service-" + service + "/**", "/api/v1/service-" + service + "/v" + generation + "/**"))
+                .ttlSeconds(60)
+                .build();
+    }
+}
@@ -0,0 +1,58 @@
+package axl.gateway.client;
+
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Non-blocking client of the gateway registration API.
+ */
+public class GatewayClient {
+
+    private final WebClient webClient;
+
+    private final Duration timeout;
+
+    public GatewayClient(String url, Duration timeout) {
+        this.webClient = WebClient.builder().baseUrl(url).build();
+        this.timeout = timeout;
+    }
+
+    /**
+     * @return hash of the accepted definition, used to validate later heartbeats
+     */
+    public Mono<String> register(ServiceDefinition service) {
+        return webClient.post()
+                .uri("/internal/service")
+                .bodyValue(service)
+                .retrieve()
+                .bodyToMono(Map.class)
+                .map(response -> response.get("hash") instanceof String hash ? hash : "")
+                .timeout(timeout);
+    }
+
+    public Mono<List<Heartbeat.Result>> heartbeat(List<Heartbeat> heartbeats) {
+        return webClient.put()
+                .uri("/internal/service/heartbeat")
+                .bodyValue(heartbeats)
+                .retrieve()
+                .bodyToFlux(Heartbeat.Result.class)
+                .collectList()
+                .timeout(timeout);
+    }
+
+    public Mono<Void> deregister(String name, String instanceId) {
+        return webClient.delete()
+                .uri(uri -> uri.path("/internal/service/{name}")
+                        .queryParamIfPresent("instance", Optional.ofNullable(instanceId))
+                        .build(name))
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(timeout)
+                .then();
+    }
+}
@@ -0,0 +1,27 @@
+package axl.gateway.client;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+@AutoConfiguration
+@EnableConfigurationProperties(GatewayClientProperties.class)
+@ConditionalOnProperty(prefix = "gateway.client", name = "enabled", matchIfMissing = true)
+public class GatewayClientAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "gateway.client", name = "url")
+    public GatewayRegistrar gatewayRegistrar(GatewayClientProperties properties) {
+        return GatewayRegistrar.shared(properties);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "gateway.client.service", name = "name")
+    public ServiceAutoRegistration serviceAutoRegistration(GatewayRegistrar registrar, GatewayClientProperties properties) {
+        return new ServiceAutoRegistration(registrar, properties);
+    }
+}
@@ -0,0 +1,56 @@
+package axl.gateway.client;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "gateway.client")
+public class GatewayClientProperties {
+
+    private boolean enabled = true;
+
+    // base url of the gateway, e.g. http://localhost:7777
+    private String url;
+
+    // upper bound of the heartbeat interval, it never exceeds a third of the ttl
+    private long heartbeatMs = 10000;
+
+    // heartbeat intervals are spread by +-jitter so that services started together drift apart
+    private double jitter = 0.2;
+
+    private long minBackoffMs = 500;
+
+    private long maxBackoffMs = 30000;
+
+    // heartbeats due within this window are sent in one batch
+    private long batchWindowMs = 200;
+
+    private long timeoutMs = 5000;
+
+    private Service service = new Service();
+
+    @Data
+    public static class Service {
+
+        private String name;
+
+        private String instanceId;
+
+        private List<String> routes;
+
+        // defaults to http://{host}:{server port}
+        private String uri;
+
+        private String host = "localhost";
+
+        private String openApiPath;
+
+        private String healthCheckPath;
+
+        private int ttlSeconds = 30;
+
+        private String balancer;
+    }
+}
@@ -0,0 +1,190 @@
+package axl.gateway.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps service instances registered with one gateway.
+ * Heartbeats of all instances are driven by a single timer and sent as batches of whatever is due within
+ * {@code batch-window-ms}, so any number of instances in one JVM costs one request per round.
+ * Failed calls back off exponentially; instances the gateway no longer knows are registered again.
+ */
+@Slf4j
+public class GatewayRegistrar {
+
+    private static final Map<String, GatewayRegistrar> SHARED = new ConcurrentHashMap<>();
+
+    private final GatewayClient client;
+
+    private final GatewayClientProperties properties;
+
+    private final Set<Registration> registrations = ConcurrentHashMap.newKeySet();
+
+    private final Scheduler scheduler = Schedulers.newSingle("gateway-registrar", true);
+
+    private final AtomicBoolean busy = new AtomicBoolean();
+
+    private Disposable ticker;
+
+    public GatewayRegistrar(GatewayClient client, GatewayClientProperties properties) {
+        this.client = client;
+        this.properties = properties;
+    }
+
+    /**
+     * @return the registrar shared by everything in this JVM that talks to the same gateway
+     */
+    public static GatewayRegistrar shared(GatewayClientProperties properties) {
+        return SHARED.computeIfAbsent(properties.getUrl(), url ->
+                new GatewayRegistrar(new GatewayClient(url, Duration.ofMillis(properties.getTimeoutMs())), properties));
+    }
+
+    /**
+     * Starts keeping the instance registered. The first registration is attempted right away
+     * and retried with backoff until it succeeds.
+     */
+    public Registration register(ServiceDefinition definition) {
+        Registration registration = new Registration(definition, this);
+        registration.nextAt = System.currentTimeMillis();
+        registrations.add(registration);
+        start();
+        return registration;
+    }
+
+    Mono<Void> cancel(Registration registration) {
+        if (!registrations.remove(registration) || !registration.isRegistered()) {
+            return Mono.empty();
+        }
+        return client.deregister(registration.getDefinition().getName(), registration.getInstanceId())
+                .doOnSuccess(v -> log.info("Service `{}` instance `{}` deregistered",
+                        registration.getDefinition().getName(), registration.getInstanceId()))
+                .onErrorResume(e -> {
+                    log.warn("Could not deregister `{}`: {}", registration.getDefinition().getName(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private synchronized void start() {
+        if (ticker == null) {
+            Duration window = Duration.ofMillis(properties.getBatchWindowMs());
+            ticker = Flux.interval(Duration.ZERO, window, scheduler)
+                    .subscribe(tick -> round());
+        }
+    }
+
+    private void round() {
+        // a slow gateway must not pile up rounds
+        if (!busy.compareAndSet(false, true)) return;
+
+        long horizon = System.currentTimeMillis() + properties.getBatchWindowMs();
+        List<Registration> unregistered = new ArrayList<>();
+        List<Registration> due = new ArrayList<>();
+        for (Registration registration : registrations) {
+            if (registration.nextAt > horizon) continue;
+            (registration.isRegistered() ? due : unregistered).add(registration);
+        }
+
+        List<Mono<Void>> calls = new ArrayList<>(unregistered.size() + 1);
+        unregistered.forEach(registration -> calls.add(register(registration)));
+        if (!due.isEmpty()) {
+            calls.add(heartbeat(due));
+        }
+
+        Mono.when(calls)
+                .publishOn(scheduler)
+                .doFinally(signal -> busy.set(false))
+                .subscribe();
+    }
+
+    private Mono<Void> register(Registration registration) {
+        ServiceDefinition definition = registration.getDefinition();
+        return client.register(definition)
+                .publishOn(scheduler)
+                .doOnNext(hash -> {
+                    if (registration.getFailures() > 0) {
+                        log.info("Service `{}` registered after {} failed attempts", definition.getName(), registration.getFailures());
+                    } else {
+                        log.info("Service `{}` registered with gateway {}", definition.getName(), properties.getUrl());
+                    }
+                    registration.registered(hash, System.currentTimeMillis(), properties);
+                })
+                .onErrorResume(e -> {
+                    registration.failed(System.currentTimeMillis(), retryAfterOf(e), properties);
+                    log.warn("Registration of `{}` failed ({} attempts): {}", definition.getName(),
+                            registration.getFailures(), e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Mono<Void> heartbeat(List<Registration> due) {
+        Map<String, Registration> byKey = new HashMap<>();
+        List<Heartbeat> heartbeats = new ArrayList<>(due.size());
+        for (Registration registration : due) {
+            Heartbeat heartbeat = registration.heartbeat();
+            byKey.put(keyOf(heartbeat.name(), heartbeat.instanceId()), registration);
+            heartbeats.add(heartbeat);
+        }
+
+        return client.heartbeat(heartbeats)
+                .publishOn(scheduler)
+                .doOnNext(results -> {
+                    long now = System.currentTimeMillis();
+                    for (Heartbeat.Result result : results) {
+                        Registration registration = byKey.remove(keyOf(result.name(), result.instanceId()));
+                        if (registration == null) continue;
+
+                        if (result.status() == Heartbeat.Status.OK) {
+                            registration.succeeded(now, properties);
+                        } else {
+                            log.info("Gateway reports `{}` instance `{}` as {}, registering again",
+                                    result.name(), result.instanceId(), result.status());
+                            registration.forgotten(now);
+                        }
+                    }
+                    // not mentioned in the answer, try again later
+                    byKey.values().forEach(registration -> registration.failed(now, 0, properties));
+                })
+                .onErrorResume(e -> {
+                    long now = System.currentTimeMillis();
+                    long retryAfter = retryAfterOf(e);
+                    due.forEach(registration -> registration.failed(now, retryAfter, properties));
+                    log.warn("Heartbeat of {} instances failed: {}", due.size(), e.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private static String keyOf(String name, String instanceId) {
+        return name + '\n' + instanceId;
+    }
+
+    private static long retryAfterOf(Throwable e) {
+        if (!(e instanceof WebClientResponseException response)) return 0;
+        if (response.getStatusCode().value() != HttpStatus.TOO_MANY_REQUESTS.value()
+                && response.getStatusCode().value() != HttpStatus.SERVICE_UNAVAILABLE.value()) return 0;
+
+        String retryAfter = response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+        try {
+            return retryAfter != null ? Long.parseLong(retryAfter.trim()) * 1000 : 0;
+        } catch (NumberFormatException ignored) {
+            return 0;
+        }
+    }
+}
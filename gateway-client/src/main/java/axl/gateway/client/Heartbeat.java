@@ -0,0 +1,18 @@
+package axl.gateway.client;
+
+/**
+ * Heartbeat of one instance, as accepted by {@code PUT /internal/service/heartbeat}.
+ */
+public record Heartbeat(String name, String instanceId, String hash) {
+
+    public enum Status {
+        OK,
+        // the gateway has no record of the instance, e.g. after a restart
+        UNKNOWN,
+        // the definition on the gateway differs from the one the hash was issued for
+        CHANGED
+    }
+
+    public record Result(String name, String instanceId, Status status) {
+    }
+}
@@ -0,0 +1,103 @@
+package axl.gateway.client;
+
+import lombok.Getter;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * One instance kept registered by a {@link GatewayRegistrar}.
+ * Scheduling state is only touched from the registrar thread.
+ */
+public class Registration {
+
+    @Getter
+    private final ServiceDefinition definition;
+
+    private final GatewayRegistrar registrar;
+
+    @Getter
+    private volatile String hash;
+
+    private volatile boolean registered;
+
+    @Getter
+    private volatile int failures;
+
+    long nextAt;
+
+    Registration(ServiceDefinition definition, GatewayRegistrar registrar) {
+        this.definition = definition;
+        this.registrar = registrar;
+    }
+
+    public String getInstanceId() {
+        String id = definition.getInstanceId();
+        return id != null && !id.isEmpty() ? id : definition.getUri();
+    }
+
+    public boolean isRegistered() {
+        return registered;
+    }
+
+    /**
+     * Stops the heartbeats and removes the instance from the gateway.
+     */
+    public Mono<Void> cancel() {
+        return registrar.cancel(this);
+    }
+
+    Heartbeat heartbeat() {
+        // older gateways answer without a hash, the heartbeat is then not validated
+        return new Heartbeat(definition.getName(), getInstanceId(), hash == null || hash.isEmpty() ? null : hash);
+    }
+
+    void registered(String hash, long now, GatewayClientProperties properties) {
+        this.hash = hash;
+        this.registered = true;
+        succeeded(now, properties);
+    }
+
+    void succeeded(long now, GatewayClientProperties properties) {
+        failures = 0;
+        nextAt = now + jittered(intervalOf(properties), properties.getJitter());
+    }
+
+    /**
+     * The gateway forgot the instance or holds another definition, register again right away.
+     */
+    void forgotten(long now) {
+        registered = false;
+        nextAt = now;
+    }
+
+    void failed(long now, long retryAfterMs, GatewayClientProperties properties) {
+        failures++;
+        if (retryAfterMs > 0) {
+            nextAt = now + retryAfterMs;
+            return;
+        }
+
+        // exponential backoff with jitter, capped, and never later than half of the ttl once registered
+        long backoff = properties.getMinBackoffMs() << Math.min(failures - 1, 20);
+        backoff = Math.min(backoff, properties.getMaxBackoffMs());
+        if (isRegistered()) {
+            backoff = Math.min(backoff, definition.getTtlSeconds() * 500L);
+        }
+        nextAt = now + backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    private long intervalOf(GatewayClientProperties properties) {
+        long interval = properties.getHeartbeatMs();
+        if (definition.getTtlSeconds() > 0) {
+            // leaves room for two lost heartbeats before the instance expires
+            interval = Math.min(interval, definition.getTtlSeconds() * 1000L / 3);
+        }
+        return Math.max(interval, properties.getBatchWindowMs());
+    }
+
+    private static long jittered(long interval, double jitter) {
+        double factor = 1 - jitter + ThreadLocalRandom.current().nextDouble() * 2 * jitter;
+        return (long) (interval * factor);
+    }
+}
@@ -0,0 +1,57 @@
+package axl.gateway.client;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.event.EventListener;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+/**
+ * Registers the application itself, described by {@code gateway.client.service.*}, once its web server is up,
+ * and deregisters it on shutdown.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ServiceAutoRegistration {
+
+    private final GatewayRegistrar registrar;
+
+    private final GatewayClientProperties properties;
+
+    private volatile Registration registration;
+
+    @EventListener
+    public void onWebServerInitialized(WebServerInitializedEvent event) {
+        // management servers on their own port publish the event too
+        if (registration != null || "management".equals(event.getApplicationContext().getServerNamespace())) {
+            return;
+        }
+
+        GatewayClientProperties.Service service = properties.getService();
+        String uri = service.getUri() != null ? service.getUri()
+                : "http://" + service.getHost() + ":" + event.getWebServer().getPort();
+
+        registration = registrar.register(ServiceDefinition.builder()
+                .name(service.getName())
+                .instanceId(service.getInstanceId())
+                .routes(service.getRoutes())
+                .uri(uri)
+                .openApiUrl(service.getOpenApiPath() != null ? uri + service.getOpenApiPath() : null)
+                .healthCheckUrl(service.getHealthCheckPath() != null ? uri + service.getHealthCheckPath() : null)
+                .ttlSeconds(service.getTtlSeconds())
+                .balancer(service.getBalancer())
+                .startedAt(ManagementFactory.getRuntimeMXBean().getStartTime())
+                .build());
+    }
+
+    @PreDestroy
+    public void deregister() {
+        Registration current = registration;
+        if (current != null) {
+            current.cancel().block(Duration.ofMillis(properties.getTimeoutMs()));
+        }
+    }
+}
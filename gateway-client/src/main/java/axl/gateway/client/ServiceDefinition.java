@@ -1,4 +1,4 @@
-package axl.gateway;
+package axl.gateway.client;
 
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -15,11 +15,20 @@ public class ServiceDefinition {
 
     private String name;
 
+    private String instanceId;
+
     private List<String> routes;
 
     private String uri;
 
     private String openApiUrl;
 
+    private String healthCheckUrl;
+
     private int ttlSeconds;
+
+    private String balancer;
+
+    // start time of the process, a new value tells the gateway the instance restarted and starts cold
+    private long startedAt;
 }
@@ -0,0 +1,260 @@
+package axl.gateway.accesslog;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Access log backed by a preallocated ring buffer.
+ * Request threads copy their fields into a free slot, which allocates nothing and never blocks:
+ * when the ring is full the record is dropped and counted. A single writer thread encodes the slots
+ * in the {@link AccessLogFormat} layout and appends them in batches to a rolling file.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AccessLog {
+
+    static final String CURRENT_FILE = "access.bin";
+
+    private static final DateTimeFormatter ROLLED_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final AccessLogProperties props;
+
+    @Getter
+    private final LongAdder written = new LongAdder();
+
+    @Getter
+    private final LongAdder dropped = new LongAdder();
+
+    @Getter
+    private final LongAdder writeErrors = new LongAdder();
+
+    private final AtomicLong tail = new AtomicLong();
+
+    // next sequence the writer reads, only written by the writer thread
+    private volatile long head;
+
+    private int mask;
+
+    private AtomicLongArray published;
+
+    private long[] started;
+
+    private long[] latencyMicros;
+
+    private long[] bytes;
+
+    private int[] status;
+
+    private String[] methods;
+
+    private String[] routes;
+
+    private URI[] upstreams;
+
+    private String[] users;
+
+    private ByteBuffer buffer;
+
+    private int batched;
+
+    private Path directory;
+
+    private FileChannel channel;
+
+    private long fileSize;
+
+    private Thread worker;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!props.isEnabled()) return;
+
+        int capacity = Integer.highestOneBit(Math.max(props.getCapacity(), 2) - 1) << 1;
+        mask = capacity - 1;
+        published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        started = new long[capacity];
+        latencyMicros = new long[capacity];
+        bytes = new long[capacity];
+        status = new int[capacity];
+        methods = new String[capacity];
+        routes = new String[capacity];
+        upstreams = new URI[capacity];
+        users = new String[capacity];
+        buffer = ByteBuffer.allocateDirect(Math.max(props.getBatchBytes(), AccessLogFormat.MAX_RECORD_BYTES));
+
+        directory = Path.of(props.getDirectory());
+        Files.createDirectories(directory);
+        open();
+
+        running = true;
+        worker = Thread.ofPlatform().name("access-log").daemon().start(this::run);
+        log.info("Access log enabled: {}", directory.resolve(CURRENT_FILE));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (!running) return;
+
+        running = false;
+        LockSupport.unpark(worker);
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+        channel.close();
+    }
+
+    public boolean isEnabled() {
+        return running;
+    }
+
+    public void append(long startedMillis, long latencyNanos, int statusCode, long contentLength,
+                       String method, String route, URI upstream, String user) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head > mask) {
+                dropped.increment();
+                return;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+
+        int slot = (int) (sequence & mask);
+        started[slot] = startedMillis;
+        latencyMicros[slot] = TimeUnit.NANOSECONDS.toMicros(latencyNanos);
+        bytes[slot] = contentLength;
+        status[slot] = statusCode;
+        methods[slot] = method;
+        routes[slot] = route;
+        upstreams[slot] = upstream;
+        users[slot] = user;
+        // publishes the plain writes above to the writer
+        published.lazySet(slot, sequence);
+    }
+
+    private void run() {
+        long idleNanos = TimeUnit.MILLISECONDS.toNanos(props.getFlushIntervalMs());
+
+        while (running || head != tail.get()) {
+            int drained = drain();
+            if (drained == 0 || buffer.remaining() < AccessLogFormat.MAX_RECORD_BYTES) {
+                flush();
+            }
+            if (drained == 0) {
+                if (!running) break;
+                LockSupport.parkNanos(idleNanos);
+            }
+        }
+        flush();
+    }
+
+    private int drain() {
+        long sequence = head;
+        int drained = 0;
+
+        while (buffer.remaining() >= AccessLogFormat.MAX_RECORD_BYTES) {
+            int slot = (int) (sequence & mask);
+            if (published.get(slot) != sequence) break;
+
+            int start = buffer.position();
+            buffer.putInt(0);
+            buffer.putLong(started[slot]);
+            buffer.putLong(latencyMicros[slot]);
+            buffer.putLong(bytes[slot]);
+            buffer.putShort((short) status[slot]);
+            AccessLogFormat.putString(buffer, methods[slot]);
+            AccessLogFormat.putString(buffer, routes[slot]);
+            URI upstream = upstreams[slot];
+            AccessLogFormat.putString(buffer, upstream != null ? upstream.toString() : null);
+            AccessLogFormat.putString(buffer, users[slot]);
+            buffer.putInt(start, buffer.position() - start - 4);
+
+            routes[slot] = null;
+            upstreams[slot] = null;
+            users[slot] = null;
+            head = ++sequence;
+            batched++;
+            drained++;
+        }
+        return drained;
+    }
+
+    private void flush() {
+        if (buffer.position() == 0) return;
+
+        buffer.flip();
+        try {
+            if (fileSize + buffer.remaining() > props.getMaxFileBytes() && fileSize > AccessLogFormat.HEADER_BYTES) {
+                roll();
+            }
+            while (buffer.hasRemaining()) {
+                fileSize += channel.write(buffer);
+            }
+            written.add(batched);
+        } catch (IOException e) {
+            writeErrors.increment();
+            dropped.add(batched);
+            log.error("Failed to write access log: {}", e.getMessage());
+        } finally {
+            buffer.clear();
+            batched = 0;
+        }
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(directory.resolve(CURRENT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileSize = channel.size();
+        if (fileSize == 0) {
+            ByteBuffer header = ByteBuffer.allocate(AccessLogFormat.HEADER_BYTES);
+            AccessLogFormat.putHeader(header);
+            header.flip();
+            while (header.hasRemaining()) {
+                fileSize += channel.write(header);
+            }
+        }
+    }
+
+    private void roll() throws IOException {
+        channel.close();
+        Files.move(directory.resolve(CURRENT_FILE),
+                directory.resolve("access-" + LocalDateTime.now().format(ROLLED_SUFFIX) + ".bin"),
+                StandardCopyOption.ATOMIC_MOVE);
+        open();
+
+        List<Path> rolled;
+        try (Stream<Path> files = Files.list(directory)) {
+            rolled = files.filter(file -> file.getFileName().toString().startsWith("access-"))
+                    .sorted()
+                    .toList();
+        }
+        for (int i = 0; i < rolled.size() - props.getMaxFiles(); i++) {
+            Files.deleteIfExists(rolled.get(i));
+        }
+    }
+}
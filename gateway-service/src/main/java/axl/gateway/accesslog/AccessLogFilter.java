@@ -0,0 +1,60 @@
+package axl.gateway.accesslog;
+
+import axl.gateway.security.JwtUserHeaderFilter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+@Component
+@RequiredArgsConstructor
+public class AccessLogFilter implements GlobalFilter, Ordered {
+
+    private final AccessLog accessLog;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (route == null || !accessLog.isEnabled()) {
+            return chain.filter(exchange);
+        }
+
+        long startedMillis = System.currentTimeMillis();
+        long started = System.nanoTime();
+
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    // this is the request before JwtUserHeaderFilter, its X-User-Id is not trusted
+                    ServerHttpRequest request = exchange.getRequest();
+                    ServerHttpResponse response = exchange.getResponse();
+                    HttpStatusCode status = response.getStatusCode();
+                    URI upstream = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+
+                    accessLog.append(startedMillis, System.nanoTime() - started,
+                            status != null ? status.value() : 0,
+                            response.getHeaders().getContentLength(),
+                            request.getMethod().name(),
+                            route.getId(),
+                            upstream,
+                            exchange.getAttribute(JwtUserHeaderFilter.USER_ID_ATTR));
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        // right after MetricsFilter, so requests rejected by later filters are logged too
+        return -199;
+    }
+}
@@ -0,0 +1,76 @@
+package axl.gateway.accesslog;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary layout of access log files, shared by the writer and {@link AccessLogReader}.
+ * <pre>
+ * file:   int magic, short version, record*
+ * record: int length of the rest, long started (epoch ms), long latency (us), long bytes (-1 unknown),
+ *         short status (0 unknown), string method, string route, string upstream, string user
+ * string: unsigned short length (0xFFFF for null), UTF-8 bytes
+ * </pre>
+ * Records are written whole, a file cut short by a crash ends with at most one partial record.
+ */
+final class AccessLogFormat {
+
+    static final int MAGIC = 0x4757414C; // GWAL
+
+    static final short VERSION = 1;
+
+    static final int HEADER_BYTES = 6;
+
+    static final int MAX_STRING_BYTES = 4096;
+
+    static final int MAX_RECORD_BYTES = 4 + 8 + 8 + 8 + 2 + 4 * (2 + MAX_STRING_BYTES);
+
+    private static final int NULL_LENGTH = 0xFFFF;
+
+    private AccessLogFormat() {
+    }
+
+    static void putHeader(ByteBuffer buffer) {
+        buffer.putInt(MAGIC).putShort(VERSION);
+    }
+
+    static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putShort((short) NULL_LENGTH);
+            return;
+        }
+
+        int length = Math.min(value.length(), MAX_STRING_BYTES);
+        if (isAscii(value, length)) {
+            // the common case, encoded in place without a temporary array
+            buffer.putShort((short) length);
+            for (int i = 0; i < length; i++) {
+                buffer.put((byte) value.charAt(i));
+            }
+            return;
+        }
+
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int size = Math.min(bytes.length, MAX_STRING_BYTES);
+        buffer.putShort((short) size);
+        buffer.put(bytes, 0, size);
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isAscii(String value, int length) {
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+}
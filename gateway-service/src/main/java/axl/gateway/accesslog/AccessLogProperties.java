@@ -0,0 +1,27 @@
+package axl.gateway.accesslog;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "gateway.access-log")
+public class AccessLogProperties {
+
+    private boolean enabled = false;
+
+    private String directory = "logs";
+
+    // slots of the ring buffer, rounded up to a power of two; records beyond it are dropped
+    private int capacity = 65536;
+
+    private int batchBytes = 1024 * 1024;
+
+    private long flushIntervalMs = 200;
+
+    private long maxFileBytes = 64L * 1024 * 1024;
+
+    // rolled files kept next to the current one
+    private int maxFiles = 10;
+}
@@ -0,0 +1,114 @@
+package axl.gateway.accesslog;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.function.Consumer;
+
+/**
+ * Decodes access log files into {@link AccessLogRecord}s.
+ * Only depends on the JDK, so it runs straight from the plain gateway-service jar:
+ * <pre>
+ * java -cp gateway-service.jar axl.gateway.accesslog.AccessLogReader logs/access.bin
+ * </pre>
+ * and prints one JSON object per record.
+ */
+public final class AccessLogReader {
+
+    private AccessLogReader() {
+    }
+
+    public static void read(Path file, Consumer<AccessLogRecord> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.remaining() < AccessLogFormat.HEADER_BYTES || buffer.getInt() != AccessLogFormat.MAGIC) {
+                throw new IOException("Not an access log file: " + file);
+            }
+            short version = buffer.getShort();
+            if (version != AccessLogFormat.VERSION) {
+                throw new IOException("Unsupported access log version " + version + ": " + file);
+            }
+
+            while (buffer.remaining() >= 4) {
+                int length = buffer.getInt();
+                // a partial record at the end was cut short by a crash
+                if (length <= 0 || length > buffer.remaining()) break;
+
+                int next = buffer.position() + length;
+                consumer.accept(new AccessLogRecord(
+                        buffer.getLong(),
+                        buffer.getLong(),
+                        buffer.getLong(),
+                        Short.toUnsignedInt(buffer.getShort()),
+                        AccessLogFormat.getString(buffer),
+                        AccessLogFormat.getString(buffer),
+                        AccessLogFormat.getString(buffer),
+                        AccessLogFormat.getString(buffer)
+                ));
+                buffer.position(next);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: AccessLogReader <file>...");
+            System.exit(1);
+        }
+
+        PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)));
+        for (String file : args) {
+            read(Path.of(file), record -> out.println(toJson(record)));
+        }
+        out.flush();
+    }
+
+    static String toJson(AccessLogRecord record) {
+        StringBuilder json = new StringBuilder(256)
+                .append("{\"time\":\"").append(Instant.ofEpochMilli(record.started())).append('"')
+                .append(",\"latencyMicros\":").append(record.latencyMicros())
+                .append(",\"status\":").append(record.status())
+                .append(",\"bytes\":").append(record.bytes());
+        field(json, "method", record.method());
+        field(json, "route", record.route());
+        field(json, "upstream", record.upstream());
+        field(json, "user", record.user());
+        return json.append('}').toString();
+    }
+
+    private static void field(StringBuilder json, String name, String value) {
+        json.append(",\"").append(name).append("\":");
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,16 @@
+package axl.gateway.accesslog;
+
+/**
+ * One decoded access log entry.
+ */
+public record AccessLogRecord(
+        long started,
+        long latencyMicros,
+        long bytes,
+        int status,
+        String method,
+        String route,
+        String upstream,
+        String user
+) {
+}
@@ -0,0 +1,37 @@
+package axl.gateway.balancer;
+
+import axl.gateway.service.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Component
+public class LeastOutstandingLoadBalancer implements LoadBalancer {
+
+    @Override
+    public String getName() {
+        return "least-outstanding";
+    }
+
+    @Override
+    public ServiceInstance choose(String service, List<ServiceInstance> instances) {
+        int size = instances.size();
+        if (size == 1) return instances.get(0);
+
+        // random starting point, so that ties are not always resolved to the first instance
+        int start = ThreadLocalRandom.current().nextInt(size);
+        ServiceInstance best = null;
+        int bestOutstanding = Integer.MAX_VALUE;
+
+        for (int i = 0; i < size; i++) {
+            ServiceInstance candidate = instances.get((start + i) % size);
+            int outstanding = candidate.getOutstanding().get();
+            if (outstanding < bestOutstanding) {
+                best = candidate;
+                bestOutstanding = outstanding;
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,12 @@
+package axl.gateway.balancer;
+
+import axl.gateway.service.ServiceInstance;
+
+import java.util.List;
+
+public interface LoadBalancer {
+
+    String getName();
+
+    ServiceInstance choose(String service, List<ServiceInstance> instances);
+}
@@ -0,0 +1,169 @@
+package axl.gateway.balancer;
+
+import axl.gateway.health.OutlierDetector;
+import axl.gateway.service.ServiceInstance;
+import axl.gateway.service.ServiceRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+@Slf4j
+@Component
+public class LoadBalancerFilter implements GlobalFilter, Ordered {
+
+    public static final String SCHEME = "lb";
+
+    public static final String SERVICE_METADATA = "service";
+
+    // instances already tried by the request, set by RetryFilter so that retries and hedges go elsewhere
+    public static final String TRIED_INSTANCES_ATTR = LoadBalancerFilter.class.getName() + ".triedInstances";
+
+    // nanoseconds until the upstream response headers arrived, the body is streamed to the client only afterwards
+    public static final String UPSTREAM_LATENCY_ATTR = LoadBalancerFilter.class.getName() + ".upstreamLatency";
+
+    private final ServiceRegistry registry;
+
+    private final OutlierDetector outlierDetector;
+
+    private final SlowStart slowStart;
+
+    private final Map<String, LoadBalancer> balancers;
+
+    private final String defaultStrategy;
+
+    public LoadBalancerFilter(ServiceRegistry registry,
+                              OutlierDetector outlierDetector,
+                              SlowStart slowStart,
+                              List<LoadBalancer> balancers,
+                              @Value("${gateway.balancer.strategy:round-robin}") String defaultStrategy) {
+        this.registry = registry;
+        this.outlierDetector = outlierDetector;
+        this.slowStart = slowStart;
+        this.balancers = balancers.stream().collect(Collectors.toMap(LoadBalancer::getName, Function.identity()));
+        this.defaultStrategy = defaultStrategy;
+
+        if (!this.balancers.containsKey(defaultStrategy)) {
+            throw new IllegalArgumentException("Unknown load balancing strategy `" + defaultStrategy + "`");
+        }
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        URI url = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+        if (url == null || !SCHEME.equals(url.getScheme())) {
+            return chain.filter(exchange);
+        }
+
+        String service = serviceOf(exchange, url);
+        List<ServiceInstance> instances = registry.getInstances(service);
+        if (instances.isEmpty()) {
+            return Mono.error(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "No instances available for service `" + service + "`"));
+        }
+
+        List<ServiceInstance> candidates = available(instances);
+        Set<ServiceInstance> tried = exchange.getAttribute(TRIED_INSTANCES_ATTR);
+        if (tried != null) {
+            candidates = untried(candidates, tried);
+        }
+        ServiceInstance instance = slowStart.admit(candidates, balancerFor(instances.get(0)).choose(service, candidates));
+        if (tried != null) {
+            tried.add(instance);
+        }
+        URI target = instance.getUri();
+
+        URI requestUrl = UriComponentsBuilder.fromUri(url)
+                .scheme(target.getScheme())
+                .host(target.getHost())
+                .port(target.getPort())
+                .build(true)
+                .toUri();
+        exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, requestUrl);
+
+        long started = System.nanoTime();
+        instance.getOutstanding().incrementAndGet();
+        return chain.filter(exchange)
+                .doOnSuccess(ignored -> {
+                    long latency = System.nanoTime() - started;
+                    exchange.getAttributes().put(UPSTREAM_LATENCY_ATTR, latency);
+                    outlierDetector.onResponse(instance, exchange.getResponse().getStatusCode(), latency);
+                    slowStart.onResponse(instance);
+                })
+                .doOnError(e -> outlierDetector.onError(instance))
+                .doFinally(signal -> instance.getOutstanding().decrementAndGet());
+    }
+
+    private static List<ServiceInstance> available(List<ServiceInstance> instances) {
+        long now = System.currentTimeMillis();
+
+        int unavailable = 0;
+        for (ServiceInstance instance : instances) {
+            if (!instance.getHealth().isAvailable(now)) unavailable++;
+        }
+
+        // with nothing left to route to, every instance is better than none
+        if (unavailable == 0 || unavailable == instances.size()) {
+            return instances;
+        }
+
+        List<ServiceInstance> available = new ArrayList<>(instances.size() - unavailable);
+        for (ServiceInstance instance : instances) {
+            if (instance.getHealth().isAvailable(now)) available.add(instance);
+        }
+        return available;
+    }
+
+    private static List<ServiceInstance> untried(List<ServiceInstance> candidates, Set<ServiceInstance> tried) {
+        List<ServiceInstance> untried = new ArrayList<>(candidates.size());
+        for (ServiceInstance instance : candidates) {
+            if (!tried.contains(instance)) untried.add(instance);
+        }
+        // a single instance is tried again rather than not at all
+        return untried.isEmpty() ? candidates : untried;
+    }
+
+    private String serviceOf(ServerWebExchange exchange, URI url) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (route != null && route.getMetadata().get(SERVICE_METADATA) instanceof String service) {
+            return service;
+        }
+        return url.getHost();
+    }
+
+    private LoadBalancer balancerFor(ServiceInstance instance) {
+        String strategy = instance.getDefinition().getBalancer();
+        LoadBalancer balancer = strategy != null ? balancers.get(strategy) : null;
+        if (balancer == null) {
+            balancer = balancers.get(defaultStrategy);
+        }
+        return balancer;
+    }
+
+    @Override
+    public int getOrder() {
+        // after RouteToRequestUrlFilter and RetryFilter, just before the 10150 slot of Spring Cloud's own
+        // load balancer filters: the auto-configured NoLoadBalancerClientFilter fails every lb:// url it
+        // sees, so it must only find ours already resolved
+        return 10149;
+    }
+}
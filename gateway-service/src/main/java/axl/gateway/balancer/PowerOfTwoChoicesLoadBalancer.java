@@ -0,0 +1,31 @@
+package axl.gateway.balancer;
+
+import axl.gateway.service.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Component
+public class PowerOfTwoChoicesLoadBalancer implements LoadBalancer {
+
+    @Override
+    public String getName() {
+        return "power-of-two";
+    }
+
+    @Override
+    public ServiceInstance choose(String service, List<ServiceInstance> instances) {
+        int size = instances.size();
+        if (size == 1) return instances.get(0);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) second++;
+
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+        return a.getOutstanding().get() <= b.getOutstanding().get() ? a : b;
+    }
+}
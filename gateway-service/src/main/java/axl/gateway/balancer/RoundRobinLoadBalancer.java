@@ -0,0 +1,28 @@
+package axl.gateway.balancer;
+
+import axl.gateway.service.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class RoundRobinLoadBalancer implements LoadBalancer {
+
+    private final Map<String, AtomicInteger> positions = new ConcurrentHashMap<>();
+
+    @Override
+    public String getName() {
+        return "round-robin";
+    }
+
+    @Override
+    public ServiceInstance choose(String service, List<ServiceInstance> instances) {
+        if (instances.size() == 1) return instances.get(0);
+
+        int position = positions.computeIfAbsent(service, k -> new AtomicInteger()).getAndIncrement();
+        return instances.get(Math.floorMod(position, instances.size()));
+    }
+}
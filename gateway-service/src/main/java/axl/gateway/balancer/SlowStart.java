@@ -0,0 +1,177 @@
+package axl.gateway.balancer;
+
+import axl.gateway.service.RegistryListener;
+import axl.gateway.service.ServiceInstance;
+import axl.gateway.service.ServiceRegistry;
+import axl.gateway.service.SlowStartPolicy;
+import axl.gateway.upstream.UpstreamPools;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ramps traffic to newly registered instances of services with a {@link SlowStartPolicy}.
+ * The weight of a new instance grows linearly from {@code minWeight} to 1 over the window; a pick of a warming
+ * instance is kept with probability equal to its weight and otherwise moved to a warm one.
+ * On registration the instance is warmed up with a few requests that also fill the connection pool,
+ * and the window ends early once its latency is in line with the warm instances.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SlowStart implements RegistryListener {
+
+    private static final double DEFAULT_MIN_WEIGHT = 0.1;
+
+    // responses to observe before the latency of a warming instance is trusted
+    private static final int MIN_SAMPLES = 50;
+
+    private static final double SETTLED_FACTOR = 1.2;
+
+    private final ServiceRegistry registry;
+
+    private final UpstreamPools pools;
+
+    private final HttpClient httpClient;
+
+    private final Map<ServiceInstance, Warming> warming = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        registry.addListener(this);
+    }
+
+    public ServiceInstance admit(List<ServiceInstance> candidates, ServiceInstance chosen) {
+        double weight = weight(chosen, System.currentTimeMillis());
+        if (weight >= 1 || ThreadLocalRandom.current().nextDouble() < weight) {
+            return chosen;
+        }
+
+        List<ServiceInstance> warm = new ArrayList<>(candidates.size());
+        for (ServiceInstance candidate : candidates) {
+            if (candidate.isWarm()) warm.add(candidate);
+        }
+        return warm.isEmpty() ? chosen : warm.get(ThreadLocalRandom.current().nextInt(warm.size()));
+    }
+
+    public void onResponse(ServiceInstance instance) {
+        if (instance.isWarm()) return;
+
+        Warming state = warming.computeIfAbsent(instance, k -> new Warming(instance.getRegisteredAt()));
+        if (state.samples().incrementAndGet() >= MIN_SAMPLES && settled(instance)) {
+            finish(instance, "latency settled");
+        }
+    }
+
+    double weight(ServiceInstance instance, long now) {
+        if (instance.isWarm()) return 1;
+
+        SlowStartPolicy policy = instance.getDefinition().getSlowStart();
+        if (policy == null || policy.getWindowSeconds() <= 0) {
+            instance.markWarm();
+            return 1;
+        }
+
+        double progress = (now - instance.getRegisteredAt()) / (policy.getWindowSeconds() * 1000.0);
+        if (progress >= 1) {
+            finish(instance, "window elapsed");
+            return 1;
+        }
+
+        double min = policy.getMinWeight() > 0 ? policy.getMinWeight() : DEFAULT_MIN_WEIGHT;
+        return min + (1 - min) * progress;
+    }
+
+    @Override
+    public void onRegister(ServiceInstance instance) {
+        if (instance.isWarm()) return;
+
+        SlowStartPolicy policy = instance.getDefinition().getSlowStart();
+        if (policy == null || policy.getWindowSeconds() <= 0) {
+            instance.markWarm();
+            return;
+        }
+        // only the first registration of an instance, or of a new process behind it, not later updates
+        Warming state = warming.get(instance);
+        if (state != null && state.since() == instance.getRegisteredAt()) return;
+        warming.put(instance, new Warming(instance.getRegisteredAt()));
+
+        warmUp(instance, policy);
+    }
+
+    @Override
+    public void onRemove(ServiceInstance instance) {
+        warming.remove(instance);
+    }
+
+    private boolean settled(ServiceInstance instance) {
+        long own = instance.getHealth().getLatencyEwmaNanos();
+        long now = System.currentTimeMillis();
+
+        long[] peers = registry.getInstances(instance.getDefinition().getName()).stream()
+                .filter(peer -> peer != instance && peer.isWarm() && peer.getHealth().isAvailable(now))
+                .mapToLong(peer -> peer.getHealth().getLatencyEwmaNanos())
+                .filter(latency -> latency > 0)
+                .sorted()
+                .toArray();
+        // without warm peers there is nothing to compare with, the window runs to its end
+        if (peers.length == 0 || own == 0) return false;
+
+        return own <= peers[peers.length / 2] * SETTLED_FACTOR;
+    }
+
+    private void finish(ServiceInstance instance, String reason) {
+        if (instance.isWarm()) return;
+        instance.markWarm();
+        warming.remove(instance);
+        log.info("Service `{}` instance `{}` warmed up: {}",
+                instance.getDefinition().getName(), instance.getId(), reason);
+    }
+
+    private void warmUp(ServiceInstance instance, SlowStartPolicy policy) {
+        int requests = Math.max(policy.getWarmupRequests(), policy.getPreconnect());
+        if (requests <= 0) return;
+
+        String name = instance.getDefinition().getName();
+        HttpClient client = pools.clientFor(name);
+        if (client == null) {
+            client = httpClient;
+        }
+
+        // concurrent requests open as many connections, which stay in the pool the proxy uses
+        int concurrency = Math.max(1, policy.getPreconnect());
+        String path = policy.getWarmupPath() != null ? policy.getWarmupPath() : "/";
+        String url = instance.getUri().resolve(path).toString();
+        int[] statuses = new int[6];
+
+        HttpClient warmupClient = client;
+        Flux.range(0, requests)
+                .flatMap(i -> warmupClient.get()
+                        .uri(url)
+                        .responseSingle((response, body) -> body.then(Mono.just(response.status().code())))
+                        .onErrorResume(e -> Mono.just(0)), concurrency)
+                .doOnNext(status -> statuses[Math.min(status / 100, 5)]++)
+                .doOnComplete(() -> log.info("Service `{}` instance `{}`: {} warm-up requests to {} done, status classes {}",
+                        name, instance.getId(), requests, path, Arrays.toString(statuses)))
+                .subscribe();
+    }
+
+    private record Warming(long since, AtomicInteger samples) {
+
+        Warming(long since) {
+            this(since, new AtomicInteger());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package axl.gateway.cache;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Copies a response body as it streams by, up to a limit, without consuming the buffers.
+ */
+public final class BodyCapture {
+
+    private final int maxBytes;
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    private boolean overflow;
+
+    public BodyCapture(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public void append(DataBuffer buffer) {
+        if (overflow) return;
+        if (bytes.size() + buffer.readableByteCount() > maxBytes) {
+            overflow = true;
+            return;
+        }
+
+        // read through views, the buffer itself still has to be written downstream
+        try (DataBuffer.ByteBufferIterator it = buffer.readableByteBuffers()) {
+            while (it.hasNext()) {
+                ByteBuffer chunk = it.next();
+                byte[] copy = new byte[chunk.remaining()];
+                chunk.get(copy);
+                bytes.write(copy, 0, copy.length);
+            }
+        }
+    }
+
+    public boolean isOverflow() {
+        return overflow;
+    }
+
+    /**
+     * @return the captured body in a read-only direct buffer, outside the heap
+     */
+    public ByteBuffer toDirectBuffer() {
+        byte[] body = bytes.toByteArray();
+        ByteBuffer direct = ByteBuffer.allocateDirect(body.length);
+        direct.put(body).flip();
+        return direct.asReadOnlyBuffer();
+    }
+}
@@ -0,0 +1,19 @@
+package axl.gateway.cache;
+
+import org.springframework.http.HttpHeaders;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Cached upstream response. The body lives in a read-only direct buffer, outside the heap.
+ */
+public record CachedResponse(String service, int status, HttpHeaders headers, ByteBuffer body, long expiresAt) {
+
+    public int size() {
+        return body.capacity();
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt <= now;
+    }
+}
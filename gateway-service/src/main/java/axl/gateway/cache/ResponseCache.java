@@ -0,0 +1,130 @@
+package axl.gateway.cache;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Byte-bounded response store. Entries are evicted in insertion order once the total body size
+ * goes over the limit, which for TTL-bound entries is close to evicting the ones expiring first.
+ */
+@Component
+public class ResponseCache {
+
+    private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+
+    // every stored entry is queued with its key, a slot whose entry was replaced or invalidated meanwhile is skipped
+    private final Queue<Slot> order = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger orderLength = new AtomicInteger();
+
+    @Getter
+    private final long maxBytes;
+
+    @Getter
+    private final AtomicLong bytes = new AtomicLong();
+
+    @Getter
+    private final LongAdder hits = new LongAdder();
+
+    @Getter
+    private final LongAdder misses = new LongAdder();
+
+    @Getter
+    private final LongAdder stores = new LongAdder();
+
+    @Getter
+    private final LongAdder evictions = new LongAdder();
+
+    public ResponseCache(@Value("${gateway.cache.max-bytes:67108864}") long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public CachedResponse get(String key) {
+        CachedResponse response = entries.get(key);
+        if (response != null && response.isExpired(System.currentTimeMillis())) {
+            // left in place, the next store for the key replaces it without a new place in the queue
+            response = null;
+        }
+
+        if (response != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return response;
+    }
+
+    public void put(String key, CachedResponse response) {
+        if (response.size() > maxBytes) return;
+
+        CachedResponse previous = entries.put(key, response);
+        bytes.addAndGet(response.size() - (previous != null ? previous.size() : 0));
+        order.offer(new Slot(key, response));
+        orderLength.incrementAndGet();
+        stores.increment();
+
+        while (bytes.get() > maxBytes) {
+            Slot oldest = order.poll();
+            if (oldest == null) break;
+            orderLength.decrementAndGet();
+
+            if (removeExact(oldest)) {
+                bytes.addAndGet(-oldest.response().size());
+                evictions.increment();
+            }
+        }
+        compact();
+    }
+
+    public void invalidate(String service) {
+        entries.forEach((key, response) -> {
+            if (response.service().equals(service) && entries.remove(key, response)) {
+                bytes.addAndGet(-response.size());
+            }
+        });
+
+        compact();
+    }
+
+    private boolean removeExact(Slot slot) {
+        // by identity: a newer response for the key may well be equal to the queued one
+        boolean[] removed = {false};
+        entries.computeIfPresent(slot.key(), (key, current) -> {
+            if (current != slot.response()) return current;
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    private void compact() {
+        // drop the slots of replaced and invalidated entries, so the queue does not outgrow the cache;
+        // it only runs once they are as many as the live ones, which keeps the cost amortized
+        if (orderLength.get() > 2 * entries.size() + 16) {
+            order.removeIf(slot -> entries.get(slot.key()) != slot.response());
+            orderLength.set(order.size());
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public double getHitRatio() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    private record Slot(String key, CachedResponse response) {
+    }
+}
@@ -0,0 +1,222 @@
+package axl.gateway.cache;
+
+import axl.gateway.balancer.LoadBalancerFilter;
+import axl.gateway.locator.DynamicRouteLocator;
+import axl.gateway.service.CachePolicy;
+import axl.gateway.service.RegistryListener;
+import axl.gateway.service.ServiceDefinition;
+import axl.gateway.service.ServiceInstance;
+import axl.gateway.service.ServiceRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Serves GET responses from {@link ResponseCache} for routes whose service declared a {@link CachePolicy}.
+ */
+@Component
+@RequiredArgsConstructor
+public class ResponseCacheFilter implements GlobalFilter, Ordered, RegistryListener {
+
+    private static final int DEFAULT_MAX_ENTRY_BYTES = 1024 * 1024;
+
+    private static final Pattern MAX_AGE = Pattern.compile("(?:^|[,\\s])(?:s-)?max-age=(\\d+)");
+
+    // without varyHeaders in the policy, responses are only shared between requests of the same caller
+    private static final List<String> DEFAULT_VARY_HEADERS = List.of("X-User-Id", HttpHeaders.AUTHORIZATION);
+
+    private static final List<String> HOP_BY_HOP = List.of(
+            HttpHeaders.CONNECTION, HttpHeaders.TRANSFER_ENCODING, HttpHeaders.SET_COOKIE, "Keep-Alive");
+
+    private final ServiceRegistry registry;
+
+    private final ResponseCache cache;
+
+    @PostConstruct
+    public void init() {
+        registry.addListener(this);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (route == null || !HttpMethod.GET.equals(request.getMethod())) {
+            return chain.filter(exchange);
+        }
+
+        if (!(route.getMetadata().get(LoadBalancerFilter.SERVICE_METADATA) instanceof String service)) {
+            return chain.filter(exchange);
+        }
+        CachePolicy policy = policyOf(registry.get(service), route.getMetadata().get(DynamicRouteLocator.PATH_METADATA));
+        if (policy == null) {
+            return chain.filter(exchange);
+        }
+
+        String key = keyOf(route, request, policy);
+        String requestCacheControl = request.getHeaders().getCacheControl();
+        boolean bypass = requestCacheControl != null && requestCacheControl.contains("no-cache");
+
+        if (!bypass) {
+            CachedResponse hit = cache.get(key);
+            if (hit != null) {
+                return write(exchange.getResponse(), hit);
+            }
+        }
+
+        ServerHttpResponse decorated = new ServerHttpResponseDecorator(exchange.getResponse()) {
+
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                long ttlMillis = ttlOf(getStatusCode(), getHeaders(), policy);
+                if (ttlMillis <= 0) {
+                    return super.writeWith(body);
+                }
+
+                int maxBytes = policy.getMaxEntryBytes() > 0 ? policy.getMaxEntryBytes() : DEFAULT_MAX_ENTRY_BYTES;
+                BodyCapture capture = new BodyCapture(maxBytes);
+
+                Flux<? extends DataBuffer> tee = Flux.from(body)
+                        .doOnNext(capture::append)
+                        .doOnComplete(() -> {
+                            if (capture.isOverflow()) return;
+                            cache.put(key, new CachedResponse(service, getStatusCode().value(),
+                                    cacheableHeaders(getHeaders()), capture.toDirectBuffer(),
+                                    System.currentTimeMillis() + ttlMillis));
+                        });
+                return super.writeWith(tee);
+            }
+        };
+
+        return chain.filter(exchange.mutate().response(decorated).build());
+    }
+
+    @Override
+    public void onRegister(ServiceInstance instance) {
+        cache.invalidate(instance.getDefinition().getName());
+    }
+
+    @Override
+    public void onRemove(ServiceInstance instance) {
+        cache.invalidate(instance.getDefinition().getName());
+    }
+
+    @Override
+    public int getOrder() {
+        // after JwtUserHeaderFilter, so X-User-Id can be part of the key
+        return -90;
+    }
+
+    private static CachePolicy policyOf(ServiceDefinition service, Object path) {
+        if (service == null || service.getCache() == null) return null;
+
+        for (CachePolicy policy : service.getCache()) {
+            if (policy.getTtlSeconds() > 0 && (policy.getRoute() == null || policy.getRoute().equals(path))) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    private static String keyOf(Route route, ServerHttpRequest request, CachePolicy policy) {
+        StringBuilder key = new StringBuilder(128)
+                .append(route.getId()).append('\n')
+                .append(request.getURI().getRawPath());
+        if (request.getURI().getRawQuery() != null) {
+            key.append('?').append(request.getURI().getRawQuery());
+        }
+
+        // the cached body may be content-encoded by the upstream
+        key.append('\n').append(request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING));
+        for (String header : varyOf(policy)) {
+            key.append('\n').append(request.getHeaders().getFirst(header));
+        }
+        return key.toString();
+    }
+
+    private static long ttlOf(HttpStatusCode status, HttpHeaders headers, CachePolicy policy) {
+        if (status == null || status.value() != 200 || headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return 0;
+        }
+
+        // the upstream says the body depends on request headers the key does not include
+        if (!keyCovers(headers.getVary(), policy)) {
+            return 0;
+        }
+
+        long ttlMillis = policy.getTtlSeconds() * 1000L;
+
+        String cacheControl = headers.getCacheControl();
+        if (cacheControl != null) {
+            String directives = cacheControl.toLowerCase(Locale.ROOT);
+            if (directives.contains("no-store") || directives.contains("no-cache")) {
+                return 0;
+            }
+            // a private response may only be shared between requests of the same user
+            if (directives.contains("private") && !variesByUser(policy)) {
+                return 0;
+            }
+
+            Matcher maxAge = MAX_AGE.matcher(directives);
+            if (maxAge.find()) {
+                ttlMillis = Math.min(ttlMillis, Long.parseLong(maxAge.group(1)) * 1000L);
+            }
+        }
+        return ttlMillis;
+    }
+
+    private static boolean variesByUser(CachePolicy policy) {
+        return varyOf(policy).stream().anyMatch("X-User-Id"::equalsIgnoreCase);
+    }
+
+    private static boolean keyCovers(List<String> vary, CachePolicy policy) {
+        for (String header : vary) {
+            if (!HttpHeaders.ACCEPT_ENCODING.equalsIgnoreCase(header)
+                    && varyOf(policy).stream().noneMatch(header::equalsIgnoreCase)) {
+                // including "*"
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> varyOf(CachePolicy policy) {
+        return policy.getVaryHeaders() != null ? policy.getVaryHeaders() : DEFAULT_VARY_HEADERS;
+    }
+
+    private static HttpHeaders cacheableHeaders(HttpHeaders source) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(source);
+        HOP_BY_HOP.forEach(headers::remove);
+        return HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
+    private static Mono<Void> write(ServerHttpResponse response, CachedResponse hit) {
+        response.setStatusCode(HttpStatusCode.valueOf(hit.status()));
+        response.getHeaders().putAll(hit.headers());
+        response.getHeaders().set("X-Cache", "HIT");
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(hit.body().duplicate())));
+    }
+}
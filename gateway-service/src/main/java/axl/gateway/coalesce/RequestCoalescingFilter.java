@@ -0,0 +1,215 @@
+package axl.gateway.coalesce;
+
+import axl.gateway.balancer.LoadBalancerFilter;
+import axl.gateway.cache.BodyCapture;
+import axl.gateway.locator.DynamicRouteLocator;
+import axl.gateway.service.CoalescePolicy;
+import axl.gateway.service.ServiceDefinition;
+import axl.gateway.service.ServiceRegistry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Collapses identical concurrent GETs of routes whose service declared a {@link CoalescePolicy}.
+ * The first request goes upstream, the ones arriving while it is in flight wait for its response.
+ * Waiters fall back to their own upstream call when the response cannot be shared, when too many
+ * are already waiting or when the leader takes longer than the policy timeout.
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestCoalescingFilter implements GlobalFilter, Ordered {
+
+    private static final int DEFAULT_MAX_WAITERS = 1000;
+
+    private static final long DEFAULT_TIMEOUT_MS = 1000;
+
+    private static final int DEFAULT_MAX_BODY_BYTES = 1024 * 1024;
+
+    private static final List<String> DEFAULT_VARY_HEADERS = List.of("X-User-Id", HttpHeaders.AUTHORIZATION);
+
+    private static final List<String> HOP_BY_HOP = List.of(
+            HttpHeaders.CONNECTION, HttpHeaders.TRANSFER_ENCODING, "Keep-Alive");
+
+    private final ServiceRegistry registry;
+
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+    @Getter
+    private final LongAdder leaders = new LongAdder();
+
+    @Getter
+    private final LongAdder coalesced = new LongAdder();
+
+    @Getter
+    private final LongAdder fallbacks = new LongAdder();
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (route == null || !HttpMethod.GET.equals(request.getMethod())) {
+            return chain.filter(exchange);
+        }
+
+        if (!(route.getMetadata().get(LoadBalancerFilter.SERVICE_METADATA) instanceof String service)) {
+            return chain.filter(exchange);
+        }
+        CoalescePolicy policy = policyOf(registry.get(service), route.getMetadata().get(DynamicRouteLocator.PATH_METADATA));
+        if (policy == null) {
+            return chain.filter(exchange);
+        }
+
+        String key = keyOf(route, request, policy);
+        InFlight created = new InFlight();
+        InFlight existing = inFlight.putIfAbsent(key, created);
+        if (existing == null) {
+            leaders.increment();
+            return lead(exchange, chain, key, created, policy);
+        }
+
+        int maxWaiters = policy.getMaxWaiters() > 0 ? policy.getMaxWaiters() : DEFAULT_MAX_WAITERS;
+        if (existing.waiters.incrementAndGet() > maxWaiters) {
+            existing.waiters.decrementAndGet();
+            fallbacks.increment();
+            return chain.filter(exchange);
+        }
+
+        long timeoutMs = policy.getTimeoutMs() > 0 ? policy.getTimeoutMs() : DEFAULT_TIMEOUT_MS;
+        return existing.response.asMono()
+                .timeout(Duration.ofMillis(timeoutMs), Mono.empty())
+                .doFinally(signal -> existing.waiters.decrementAndGet())
+                .flatMap(shared -> {
+                    coalesced.increment();
+                    return write(exchange.getResponse(), shared);
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    fallbacks.increment();
+                    return chain.filter(exchange);
+                }));
+    }
+
+    private Mono<Void> lead(ServerWebExchange exchange, GatewayFilterChain chain, String key, InFlight flight,
+                            CoalescePolicy policy) {
+        ServerHttpResponse decorated = new ServerHttpResponseDecorator(exchange.getResponse()) {
+
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                HttpStatusCode status = getStatusCode();
+                if (status == null || getHeaders().containsKey(HttpHeaders.SET_COOKIE)) {
+                    // per client responses are never handed to anyone else
+                    flight.complete(key, null);
+                    return super.writeWith(body);
+                }
+
+                int maxBytes = policy.getMaxBodyBytes() > 0 ? policy.getMaxBodyBytes() : DEFAULT_MAX_BODY_BYTES;
+                BodyCapture capture = new BodyCapture(maxBytes);
+
+                Flux<? extends DataBuffer> tee = Flux.from(body)
+                        .doOnNext(capture::append)
+                        .doOnComplete(() -> flight.complete(key, capture.isOverflow() ? null
+                                : new SharedResponse(status.value(), shareableHeaders(getHeaders()), capture.toDirectBuffer())));
+                return super.writeWith(tee);
+            }
+        };
+
+        return chain.filter(exchange.mutate().response(decorated).build())
+                // errors, cancellation and bodiless responses release the waiters to their own calls
+                .doFinally(signal -> flight.complete(key, null));
+    }
+
+    @Override
+    public int getOrder() {
+        // after ResponseCacheFilter, so cache hits never wait for anyone
+        return -85;
+    }
+
+    private static CoalescePolicy policyOf(ServiceDefinition service, Object path) {
+        if (service == null || service.getCoalesce() == null) return null;
+
+        for (CoalescePolicy policy : service.getCoalesce()) {
+            if (policy.getRoute() == null || policy.getRoute().equals(path)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    private static String keyOf(Route route, ServerHttpRequest request, CoalescePolicy policy) {
+        StringBuilder key = new StringBuilder(128)
+                .append(route.getId()).append('\n')
+                .append(request.getURI().getRawPath());
+        if (request.getURI().getRawQuery() != null) {
+            key.append('?').append(request.getURI().getRawQuery());
+        }
+
+        // the shared body may be content-encoded by the upstream
+        key.append('\n').append(request.getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING));
+        List<String> vary = policy.getVaryHeaders() != null ? policy.getVaryHeaders() : DEFAULT_VARY_HEADERS;
+        for (String header : vary) {
+            key.append('\n').append(request.getHeaders().getFirst(header));
+        }
+        return key.toString();
+    }
+
+    private static HttpHeaders shareableHeaders(HttpHeaders source) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(source);
+        HOP_BY_HOP.forEach(headers::remove);
+        return HttpHeaders.readOnlyHttpHeaders(headers);
+    }
+
+    private static Mono<Void> write(ServerHttpResponse response, SharedResponse shared) {
+        response.setStatusCode(HttpStatusCode.valueOf(shared.status()));
+        response.getHeaders().putAll(shared.headers());
+        response.getHeaders().set("X-Coalesced", "true");
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(shared.body().duplicate())));
+    }
+
+    private final class InFlight {
+
+        private final Sinks.One<SharedResponse> response = Sinks.one();
+
+        private final AtomicInteger waiters = new AtomicInteger();
+
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private void complete(String key, SharedResponse shared) {
+            if (!completed.compareAndSet(false, true)) return;
+
+            // later arrivals start a new upstream call instead of joining a finished one
+            inFlight.remove(key, this);
+            if (shared != null) {
+                response.tryEmitValue(shared);
+            } else {
+                response.tryEmitEmpty();
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package axl.gateway.coalesce;
+
+import org.springframework.http.HttpHeaders;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Upstream response handed to every coalesced request. The body is captured once into a read-only direct
+ * buffer and each waiter writes its own {@link ByteBuffer#duplicate() view} of it.
+ */
+public record SharedResponse(int status, HttpHeaders headers, ByteBuffer body) {
+}
@@ -0,0 +1,102 @@
+package axl.gateway.health;
+
+import axl.gateway.service.InstanceHealth;
+import axl.gateway.service.ServiceEntry;
+import axl.gateway.service.ServiceInstance;
+import axl.gateway.service.ServiceRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HealthChecker {
+
+    private final ServiceRegistry registry;
+
+    private final HealthProperties props;
+
+    private final OutlierDetector outlierDetector;
+
+    private final WebClient webClient = WebClient.create();
+
+    private final AtomicBoolean probing = new AtomicBoolean();
+
+    @Scheduled(fixedDelayString = "${gateway.health.interval-ms:5000}")
+    public void check() {
+        detectLatencyOutliers();
+
+        // a slow round must not overlap with the next one
+        if (!probing.compareAndSet(false, true)) return;
+
+        Flux.fromIterable(registry.getServices().values())
+                .flatMapIterable(ServiceEntry::instances)
+                .filter(instance -> instance.getDefinition().getHealthCheckUrl() != null)
+                .flatMap(this::probe, props.getConcurrency())
+                .doFinally(signal -> probing.set(false))
+                .subscribe();
+    }
+
+    private Mono<Void> probe(ServiceInstance instance) {
+        InstanceHealth health = instance.getHealth();
+
+        return webClient.get()
+                .uri(instance.getDefinition().getHealthCheckUrl())
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(Duration.ofMillis(props.getTimeoutMs()))
+                .doOnSuccess(response -> {
+                    health.getProbeFailures().set(0);
+                    if (!health.isHealthy()) {
+                        health.setHealthy(true);
+                        log.info("Service `{}` instance `{}` is healthy again",
+                                instance.getDefinition().getName(), instance.getId());
+                    }
+                })
+                .onErrorResume(e -> {
+                    if (health.getProbeFailures().incrementAndGet() >= props.getUnhealthyThreshold() && health.isHealthy()) {
+                        health.setHealthy(false);
+                        log.warn("Service `{}` instance `{}` failed health check: {}",
+                                instance.getDefinition().getName(), instance.getId(), e.getMessage());
+                    }
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private void detectLatencyOutliers() {
+        long minNanos = Duration.ofMillis(props.getLatencyOutlierMinMs()).toNanos();
+
+        for (ServiceEntry entry : registry.getServices().values()) {
+            List<ServiceInstance> instances = entry.instances();
+            if (instances.size() < 3) continue;
+
+            long[] latencies = instances.stream()
+                    .mapToLong(instance -> instance.getHealth().getLatencyEwmaNanos())
+                    .filter(latency -> latency > 0)
+                    .sorted()
+                    .toArray();
+            if (latencies.length < 3) continue;
+
+            long median = latencies[latencies.length / 2];
+            long threshold = Math.max((long) (median * props.getLatencyOutlierFactor()), minNanos);
+
+            for (ServiceInstance instance : instances) {
+                if (instance.getHealth().getLatencyEwmaNanos() > threshold) {
+                    outlierDetector.eject(instance, "latency outlier");
+                    // start from scratch after re-admission
+                    instance.getHealth().setLatencyEwmaNanos(0);
+                }
+            }
+        }
+    }
+}
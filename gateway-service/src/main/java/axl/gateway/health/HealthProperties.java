@@ -0,0 +1,29 @@
+package axl.gateway.health;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "gateway.health")
+public class HealthProperties {
+
+    private long intervalMs = 5000;
+
+    private long timeoutMs = 1000;
+
+    private int concurrency = 8;
+
+    private int unhealthyThreshold = 2;
+
+    private int consecutiveFailures = 5;
+
+    private long baseEjectionMs = 10000;
+
+    private long maxEjectionMs = 300000;
+
+    private double latencyOutlierFactor = 3.0;
+
+    private long latencyOutlierMinMs = 50;
+}
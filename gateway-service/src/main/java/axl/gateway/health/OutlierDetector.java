@@ -0,0 +1,67 @@
+package axl.gateway.health;
+
+import axl.gateway.service.InstanceHealth;
+import axl.gateway.service.ServiceInstance;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+
+/**
+ * Passive outlier detection on proxied responses.
+ * An instance that keeps failing is ejected from balancing for an exponentially growing period.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutlierDetector {
+
+    private final HealthProperties props;
+
+    public void onResponse(ServiceInstance instance, HttpStatusCode status, long latencyNanos) {
+        InstanceHealth health = instance.getHealth();
+        health.recordLatency(latencyNanos);
+
+        if (status != null && status.is5xxServerError()) {
+            onFailure(instance);
+        } else {
+            onSuccess(health);
+        }
+    }
+
+    public void onError(ServiceInstance instance) {
+        onFailure(instance);
+    }
+
+    public void eject(ServiceInstance instance, String reason) {
+        InstanceHealth health = instance.getHealth();
+        long now = System.currentTimeMillis();
+        if (health.isEjected(now)) return;
+
+        int ejections = health.getEjections() + 1;
+        long duration = Math.min(props.getBaseEjectionMs() << Math.min(ejections - 1, 20), props.getMaxEjectionMs());
+
+        health.setEjections(ejections);
+        health.setEjectedUntil(now + duration);
+        health.getConsecutiveFailures().set(0);
+
+        log.warn("Service `{}` instance `{}` ejected for {} ms: {}",
+                instance.getDefinition().getName(), instance.getId(), duration, reason);
+    }
+
+    private void onFailure(ServiceInstance instance) {
+        if (instance.getHealth().getConsecutiveFailures().incrementAndGet() >= props.getConsecutiveFailures()) {
+            eject(instance, "consecutive failures");
+        }
+    }
+
+    private void onSuccess(InstanceHealth health) {
+        health.getConsecutiveFailures().set(0);
+
+        // forget past ejections once the instance has behaved for a full maximum ejection period
+        if (health.getEjections() > 0
+                && System.currentTimeMillis() - health.getEjectedUntil() > props.getMaxEjectionMs()) {
+            health.setEjections(0);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package axl.gateway.limit;
+
+import axl.gateway.service.ConcurrencyLimitPolicy;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit of one service, adjusted from the round trip times of its requests.
+ * Admission is a lock-free check against the current limit; only the adjustment is synchronized.
+ */
+@Getter
+public abstract class AdaptiveLimit {
+
+    private final String service;
+
+    private final ConcurrencyLimitPolicy policy;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double anonymousShare;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final LongAdder admitted = new LongAdder();
+
+    private final LongAdder shedAuthenticated = new LongAdder();
+
+    private final LongAdder shedAnonymous = new LongAdder();
+
+    private volatile double limit;
+
+    private volatile long lastUsed = System.currentTimeMillis();
+
+    protected AdaptiveLimit(String service, ConcurrencyLimitPolicy policy, int initialLimit,
+                            int minLimit, int maxLimit, double anonymousShare) {
+        this.service = service;
+        this.policy = policy;
+        this.minLimit = minLimit;
+        this.maxLimit = Math.max(minLimit, maxLimit);
+        this.anonymousShare = anonymousShare;
+        this.limit = clamp(initialLimit);
+    }
+
+    public boolean tryAcquire(Priority priority) {
+        lastUsed = System.currentTimeMillis();
+        int cap = priority == Priority.AUTHENTICATED ? (int) limit : Math.max(1, (int) (limit * anonymousShare));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= cap) {
+                (priority == Priority.AUTHENTICATED ? shedAuthenticated : shedAnonymous).increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                admitted.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Frees the slot of a finished request and feeds its outcome to the algorithm.
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int current = inFlight.getAndDecrement();
+        synchronized (this) {
+            limit = clamp(next(limit, rttNanos, current, dropped));
+        }
+    }
+
+    /**
+     * Frees the slot of a request whose outcome says nothing about the upstream, e.g. a cancelled one.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public boolean isIdle(long now, long idleTimeoutMs) {
+        return inFlight.get() == 0 && lastUsed + idleTimeoutMs < now;
+    }
+
+    public int getCurrentLimit() {
+        return (int) limit;
+    }
+
+    protected abstract double next(double limit, long rttNanos, int inFlight, boolean dropped);
+
+    private double clamp(double value) {
+        return Math.min(maxLimit, Math.max(minLimit, value));
+    }
+}
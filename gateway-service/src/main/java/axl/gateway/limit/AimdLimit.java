@@ -0,0 +1,25 @@
+package axl.gateway.limit;
+
+import axl.gateway.service.ConcurrencyLimitPolicy;
+
+/**
+ * Additive increase while requests succeed with the limit in use, multiplicative decrease on every dropped one.
+ */
+public class AimdLimit extends AdaptiveLimit {
+
+    private final double backoffRatio;
+
+    public AimdLimit(String service, ConcurrencyLimitPolicy policy, int initialLimit,
+                     int minLimit, int maxLimit, double anonymousShare, double backoffRatio) {
+        super(service, policy, initialLimit, minLimit, maxLimit, anonymousShare);
+        this.backoffRatio = backoffRatio;
+    }
+
+    @Override
+    protected double next(double limit, long rttNanos, int inFlight, boolean dropped) {
+        if (dropped) {
+            return limit * backoffRatio;
+        }
+        return inFlight * 2 >= limit ? limit + 1 : limit;
+    }
+}
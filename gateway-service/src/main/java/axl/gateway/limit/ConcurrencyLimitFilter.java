@@ -0,0 +1,73 @@
+package axl.gateway.limit;
+
+import axl.gateway.balancer.LoadBalancerFilter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Fails requests beyond the concurrency limit of their service fast with 503, instead of letting them
+ * queue on the event loops and slow down every other route.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConcurrencyLimitFilter implements GlobalFilter, Ordered {
+
+    private final ConcurrencyLimiter limiter;
+
+    private final ConcurrencyLimitProperties props;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (!props.isEnabled() || route == null
+                || !(route.getMetadata().get(LoadBalancerFilter.SERVICE_METADATA) instanceof String service)) {
+            return chain.filter(exchange);
+        }
+
+        Priority priority = exchange.getRequest().getHeaders().containsKey("X-User-Id")
+                ? Priority.AUTHENTICATED : Priority.ANONYMOUS;
+        AdaptiveLimit limit = limiter.acquire(service, priority);
+        if (limit == null) {
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(props.getRetryAfterSeconds()));
+            return response.setComplete();
+        }
+
+        long started = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    if (signal == SignalType.CANCEL) {
+                        limit.release();
+                    } else {
+                        // up to the upstream response headers: a slow client or a large body says nothing about the service
+                        Long upstream = exchange.getAttribute(LoadBalancerFilter.UPSTREAM_LATENCY_ATTR);
+                        limit.release(upstream != null ? upstream : System.nanoTime() - started,
+                                signal == SignalType.ON_ERROR || dropped(exchange.getResponse().getStatusCode()));
+                    }
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        // after RequestCoalescingFilter, so requests answered without an upstream call take no slot
+        return -80;
+    }
+
+    private static boolean dropped(HttpStatusCode status) {
+        return status != null && (status.value() == 503 || status.value() == 504);
+    }
+}
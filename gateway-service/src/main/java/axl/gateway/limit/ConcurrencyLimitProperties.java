@@ -0,0 +1,37 @@
+package axl.gateway.limit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "gateway.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+
+    private String algorithm = "gradient";
+
+    // for services with a policy that sets no initial limit; services without a policy start at max-limit
+    private int initialLimit = 20;
+
+    private int minLimit = 5;
+
+    private int maxLimit = 1000;
+
+    private double anonymousShare = 0.8;
+
+    // weight of a new limit against the current one, damps the gradient algorithm
+    private double smoothing = 0.2;
+
+    // the aimd algorithm multiplies the limit by this on every dropped request
+    private double backoffRatio = 0.9;
+
+    private int retryAfterSeconds = 1;
+
+    // learned limits survive instance churn and redeploys, they are only dropped after this long unused
+    private long idleTimeoutMs = 600000;
+
+    private long sweepIntervalMs = 60000;
+}
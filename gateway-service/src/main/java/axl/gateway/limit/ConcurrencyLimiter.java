@@ -0,0 +1,94 @@
+package axl.gateway.limit;
+
+import axl.gateway.service.ConcurrencyLimitPolicy;
+import axl.gateway.service.ServiceDefinition;
+import axl.gateway.service.ServiceRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adaptive concurrency limits per registered service.
+ * Limits are created on the first request and replaced when the policy of the service changes.
+ * They outlive the instances of the service, so a redeploy keeps what was learned, and are only
+ * dropped after {@code idle-timeout-ms} without requests.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConcurrencyLimiter {
+
+    private final ServiceRegistry registry;
+
+    private final ConcurrencyLimitProperties props;
+
+    private final Map<String, AdaptiveLimit> limits = new ConcurrentHashMap<>();
+
+    /**
+     * @return limit the request was admitted by and has to be released to, or null when it is shed
+     */
+    public AdaptiveLimit acquire(String service, Priority priority) {
+        AdaptiveLimit limit = limitFor(service);
+        return limit == null || limit.tryAcquire(priority) ? limit : null;
+    }
+
+    public Collection<AdaptiveLimit> getLimits() {
+        return limits.values();
+    }
+
+    @Scheduled(fixedDelayString = "${gateway.concurrency-limit.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        limits.values().removeIf(limit -> limit.isIdle(now, props.getIdleTimeoutMs()));
+    }
+
+    private AdaptiveLimit limitFor(String service) {
+        ServiceDefinition definition = registry.get(service);
+        if (definition == null) {
+            return null;
+        }
+
+        ConcurrencyLimitPolicy policy = definition.getConcurrencyLimit();
+        AdaptiveLimit limit = limits.get(service);
+        if (limit != null && Objects.equals(limit.getPolicy(), policy)) {
+            return limit;
+        }
+
+        return limits.compute(service, (name, existing) ->
+                existing != null && Objects.equals(existing.getPolicy(), policy) ? existing : create(name, policy));
+    }
+
+    private AdaptiveLimit create(String service, ConcurrencyLimitPolicy policy) {
+        ConcurrencyLimitPolicy p = policy != null ? policy : new ConcurrencyLimitPolicy();
+        String algorithm = p.getAlgorithm() != null ? p.getAlgorithm() : props.getAlgorithm();
+        int minLimit = p.getMinLimit() > 0 ? p.getMinLimit() : props.getMinLimit();
+        int maxLimit = p.getMaxLimit() > 0 ? p.getMaxLimit() : props.getMaxLimit();
+        // without a policy nothing is known about the service: start wide open and let the measurements
+        // bring the limit down, rather than shedding healthy traffic from the first request
+        int initialLimit = p.getInitialLimit() > 0 ? p.getInitialLimit()
+                : policy != null ? props.getInitialLimit() : maxLimit;
+        double anonymousShare = p.getAnonymousShare() > 0 ? p.getAnonymousShare() : props.getAnonymousShare();
+
+        AdaptiveLimit limit = switch (algorithm) {
+            case "aimd" -> new AimdLimit(service, policy, initialLimit, minLimit, maxLimit, anonymousShare,
+                    props.getBackoffRatio());
+            case "gradient" -> new GradientLimit(service, policy, initialLimit, minLimit, maxLimit, anonymousShare,
+                    props.getSmoothing());
+            default -> {
+                log.warn("Unknown concurrency limit algorithm `{}` for service `{}`, using `{}`",
+                        algorithm, service, "gradient");
+                yield new GradientLimit(service, policy, initialLimit, minLimit, maxLimit, anonymousShare,
+                        props.getSmoothing());
+            }
+        };
+        log.info("Concurrency limit for service `{}`: {} starting at {} within [{}, {}]",
+                service, algorithm, limit.getCurrentLimit(), minLimit, maxLimit);
+        return limit;
+    }
+}
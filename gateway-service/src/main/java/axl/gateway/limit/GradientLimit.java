@@ -0,0 +1,51 @@
+package axl.gateway.limit;
+
+import axl.gateway.service.ConcurrencyLimitPolicy;
+
+/**
+ * Scales the limit by the ratio of the long-term to the short-term round trip time: the limit holds while
+ * latency is at its baseline and shrinks as requests start to queue upstream. A headroom of sqrt(limit)
+ * lets it probe upwards.
+ */
+public class GradientLimit extends AdaptiveLimit {
+
+    private static final double SHORT_WINDOW = 10;
+
+    private static final double LONG_WINDOW = 600;
+
+    private final double smoothing;
+
+    private double shortRtt;
+
+    private double longRtt;
+
+    public GradientLimit(String service, ConcurrencyLimitPolicy policy, int initialLimit,
+                         int minLimit, int maxLimit, double anonymousShare, double smoothing) {
+        super(service, policy, initialLimit, minLimit, maxLimit, anonymousShare);
+        this.smoothing = smoothing;
+    }
+
+    @Override
+    protected double next(double limit, long rttNanos, int inFlight, boolean dropped) {
+        if (longRtt == 0) {
+            shortRtt = longRtt = rttNanos;
+        }
+        shortRtt += (rttNanos - shortRtt) / SHORT_WINDOW;
+        longRtt += (rttNanos - longRtt) / LONG_WINDOW;
+
+        // after a sustained slowdown the baseline drifts up, let it recover once latency is back to normal
+        if (longRtt > shortRtt * 2) {
+            longRtt *= 0.95;
+        }
+
+        double gradient = dropped ? 0.5 : Math.max(0.5, Math.min(1.0, longRtt / shortRtt));
+        double target = limit * gradient + Math.sqrt(limit);
+
+        // an underused limit says nothing about what the upstream could take: it may shrink as latency
+        // rises, which brings a service starting at max-limit down, but it never grows
+        if (!dropped && inFlight < limit / 2) {
+            target = Math.min(target, limit);
+        }
+        return limit * (1 - smoothing) + target * smoothing;
+    }
+}
@@ -0,0 +1,11 @@
+package axl.gateway.limit;
+
+/**
+ * Admission class of a request, authenticated traffic is shed last.
+ */
+public enum Priority {
+
+    AUTHENTICATED,
+
+    ANONYMOUS
+}
@@ -1,42 +1,158 @@
 package axl.gateway.locator;
 
+import axl.gateway.balancer.LoadBalancerFilter;
+import axl.gateway.service.RegistrySnapshot;
+import axl.gateway.service.ServiceDefinition;
+import axl.gateway.service.ServiceEntry;
 import axl.gateway.service.ServiceRegistry;
-import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
-import org.springframework.cloud.gateway.route.RouteDefinition;
-import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
-import org.springframework.cloud.gateway.support.NameUtils;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.handler.predicate.PathRoutePredicateFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
-@Configuration
-public class DynamicRouteLocator {
+/**
+ * Builds gateway routes straight from the registry snapshot.
+ * Compiled routes are cached per service and only rebuilt when the service revision changes,
+ * so a refresh caused by one service does not recompile the routes of all the others.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DynamicRouteLocator implements RouteLocator {
 
-    @Bean
-    public RouteDefinitionLocator dynamicRoutes(ServiceRegistry registry) {
-        return () -> {
-            List<RouteDefinition> defs = new ArrayList<>();
+    public static final String PATH_METADATA = "path";
 
-            registry.getServices().forEach((name, service) -> {
-                service.getRoutes().forEach(path -> {
-                    RouteDefinition def = new RouteDefinition();
-                    def.setId(name + "_" + path);
-                    def.setUri(URI.create(service.getUri()));
+    private final ServiceRegistry registry;
 
-                    PredicateDefinition predicate = new PredicateDefinition();
-                    predicate.setName("Path");
-                    predicate.addArg(NameUtils.GENERATED_NAME_PREFIX + "0", path);
+    private final PathRoutePredicateFactory pathPredicateFactory;
 
-                    def.setPredicates(List.of(predicate));
-                    defs.add(def);
-                });
-            });
+    private final Map<String, CachedRoutes> cache = new HashMap<>();
 
-            return Flux.fromIterable(defs);
-        };
+    private List<Route> routes = List.of();
+
+    private long builtVersion = -1;
+
+    private volatile RouteIndex index = RouteIndex.EMPTY;
+
+    @Getter
+    private final LongAdder refreshCount = new LongAdder();
+
+    @Getter
+    private final AtomicLong refreshTotalNanos = new AtomicLong();
+
+    @Getter
+    private volatile long lastRefreshNanos;
+
+    @Getter
+    private final LongAdder rebuiltServices = new LongAdder();
+
+    @Override
+    public Flux<Route> getRoutes() {
+        return Flux.defer(() -> Flux.fromIterable(refresh()));
+    }
+
+    /**
+     * @return path index over the routes of the current registry snapshot
+     */
+    public RouteIndex getIndex() {
+        RouteIndex current = index;
+        if (current.version() != registry.getSnapshot().version()) {
+            refresh();
+            current = index;
+        }
+        return current;
+    }
+
+    /**
+     * Finds routes of the given service that other services already claim.
+     */
+    public List<RouteConflict> findConflicts(ServiceDefinition service) {
+        if (service.getRoutes() == null) return List.of();
+
+        List<RouteConflict> conflicts = new ArrayList<>();
+        for (ServiceEntry entry : registry.getSnapshot().services().values()) {
+            if (entry.name().equals(service.getName())) continue;
+
+            for (String route : service.getRoutes()) {
+                for (String claimed : entry.routes()) {
+                    if (RouteIndex.overlap(route, claimed)) {
+                        conflicts.add(new RouteConflict(route, entry.name(), claimed, route.equals(claimed)));
+                    }
+                }
+            }
+        }
+        return conflicts;
+    }
+
+    private synchronized List<Route> refresh() {
+        RegistrySnapshot snapshot = registry.getSnapshot();
+        if (snapshot.version() == builtVersion) {
+            return routes;
+        }
+
+        long started = System.nanoTime();
+        int rebuilt = 0;
+
+        cache.keySet().retainAll(snapshot.services().keySet());
+
+        List<Route> result = new ArrayList<>();
+        for (ServiceEntry entry : snapshot.services().values()) {
+            CachedRoutes cached = cache.get(entry.name());
+            if (cached == null || cached.revision() != entry.revision()) {
+                cached = new CachedRoutes(entry.revision(), build(entry));
+                cache.put(entry.name(), cached);
+                rebuilt++;
+            }
+            result.addAll(cached.routes());
+        }
+
+        routes = List.copyOf(result);
+        builtVersion = snapshot.version();
+        index = RouteIndex.build(snapshot.version(), routes);
+
+        long elapsed = System.nanoTime() - started;
+        lastRefreshNanos = elapsed;
+        refreshTotalNanos.addAndGet(elapsed);
+        refreshCount.increment();
+        rebuiltServices.add(rebuilt);
+        log.debug("Routes refreshed to registry version {}: {} routes, {} services rebuilt in {} µs",
+                snapshot.version(), routes.size(), rebuilt, elapsed / 1000);
+
+        return routes;
+    }
+
+    private List<Route> build(ServiceEntry entry) {
+        URI uri = URI.create(LoadBalancerFilter.SCHEME + "://" + entry.name());
+
+        List<Route> built = new ArrayList<>(entry.routes().size());
+        for (String path : entry.routes()) {
+            PathRoutePredicateFactory.Config config = new PathRoutePredicateFactory.Config()
+                    .setPatterns(List.of(path));
+
+            built.add(Route.async()
+                    .id(entry.name() + "_" + path)
+                    .uri(uri)
+                    .metadata(Map.of(
+                            LoadBalancerFilter.SERVICE_METADATA, entry.name(),
+                            PATH_METADATA, path))
+                    .asyncPredicate(pathPredicateFactory.applyAsync(config))
+                    .build());
+        }
+        return List.copyOf(built);
+    }
+
+    private record CachedRoutes(long revision, List<Route> routes) {
     }
 }
@@ -0,0 +1,50 @@
+package axl.gateway.locator;
+
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.core.env.Environment;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_PREDICATE_ROUTE_ATTR;
+
+/**
+ * Resolves dynamic routes through the {@link RouteIndex} instead of testing every route predicate in turn.
+ * Paths the index does not know fall back to the regular sequential lookup, so statically configured
+ * routes keep working.
+ */
+public class IndexedRoutePredicateHandlerMapping extends RoutePredicateHandlerMapping {
+
+    private final DynamicRouteLocator dynamicRouteLocator;
+
+    public IndexedRoutePredicateHandlerMapping(FilteringWebHandler webHandler,
+                                               RouteLocator routeLocator,
+                                               GlobalCorsProperties globalCorsProperties,
+                                               Environment environment,
+                                               DynamicRouteLocator dynamicRouteLocator) {
+        super(webHandler, routeLocator, globalCorsProperties, environment);
+        this.dynamicRouteLocator = dynamicRouteLocator;
+    }
+
+    @Override
+    protected Mono<Route> lookupRoute(ServerWebExchange exchange) {
+        Route route = dynamicRouteLocator.getIndex().match(exchange.getRequest().getPath().pathWithinApplication());
+        if (route == null) {
+            return super.lookupRoute(exchange);
+        }
+
+        // the predicate also exposes the uri template variables, exactly like the sequential lookup
+        return Mono.from(route.getPredicate().apply(exchange))
+                .flatMap(matched -> {
+                    if (!matched) {
+                        return super.lookupRoute(exchange);
+                    }
+                    exchange.getAttributes().put(GATEWAY_PREDICATE_ROUTE_ATTR, route.getId());
+                    validateRoute(route, exchange);
+                    return Mono.just(route);
+                });
+    }
+}
@@ -0,0 +1,8 @@
+package axl.gateway.locator;
+
+/**
+ * A route of a registering service that is also claimed by another service.
+ * {@code duplicate} is set for identical patterns, otherwise the patterns merely overlap.
+ */
+public record RouteConflict(String route, String service, String conflictingRoute, boolean duplicate) {
+}
@@ -0,0 +1,154 @@
+package axl.gateway.locator;
+
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Segment trie over the path patterns of the dynamic routes.
+ * A lookup walks one branch per path segment, so its cost depends on the depth of the path rather than
+ * on the number of routes. Literal segments are preferred over single-segment wildcards, and those over
+ * {@code **}, so the most specific pattern with the longest literal prefix wins.
+ * Candidates are confirmed with the route's own {@link PathPattern}, so matching semantics stay exactly those
+ * of the {@code Path} predicate; the trie only decides which patterns are worth trying.
+ */
+public class RouteIndex {
+
+    public static final RouteIndex EMPTY = new RouteIndex(-1, new Node(), 0);
+
+    private final long version;
+
+    private final Node root;
+
+    private final int size;
+
+    private RouteIndex(long version, Node root, int size) {
+        this.version = version;
+        this.root = root;
+        this.size = size;
+    }
+
+    public static RouteIndex build(long version, List<Route> routes) {
+        Node root = new Node();
+        int size = 0;
+        for (Route route : routes) {
+            Object path = route.getMetadata().get(DynamicRouteLocator.PATH_METADATA);
+            if (!(path instanceof String pattern)) continue;
+
+            root.insert(segments(pattern), 0, new Entry(route, PathPatternParser.defaultInstance.parse(pattern)));
+            size++;
+        }
+        return new RouteIndex(version, root, size);
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Route match(PathContainer path) {
+        Entry entry = root.match(segments(path.value()), 0, path);
+        return entry != null ? entry.route() : null;
+    }
+
+    /**
+     * @return whether some request path could be matched by both patterns
+     */
+    public static boolean overlap(String first, String second) {
+        return overlap(segments(first), 0, segments(second), 0);
+    }
+
+    private static boolean overlap(String[] a, int i, String[] b, int j) {
+        if (i < a.length && isRest(a[i]) || j < b.length && isRest(b[j])) return true;
+        if (i == a.length || j == b.length) return i == a.length && j == b.length;
+
+        if (!isWildcard(a[i]) && !isWildcard(b[j]) && !a[i].equals(b[j])) return false;
+        return overlap(a, i + 1, b, j + 1);
+    }
+
+    private static String[] segments(String path) {
+        String trimmed = path.startsWith("/") ? path.substring(1) : path;
+        return trimmed.split("/", -1);
+    }
+
+    private static boolean isRest(String segment) {
+        return segment.equals("**") || segment.startsWith("{*");
+    }
+
+    private static boolean isWildcard(String segment) {
+        return segment.indexOf('*') >= 0 || segment.indexOf('{') >= 0 || segment.indexOf('?') >= 0;
+    }
+
+    private record Entry(Route route, PathPattern pattern) {
+
+        boolean matches(PathContainer path) {
+            return pattern.matches(path);
+        }
+    }
+
+    private static class Node {
+
+        private final Map<String, Node> literals = new HashMap<>();
+
+        private Node wildcard;
+
+        // patterns ending at this node
+        private final List<Entry> exact = new ArrayList<>(0);
+
+        // patterns whose remaining segments are a ** or {*var}
+        private final List<Entry> rest = new ArrayList<>(0);
+
+        void insert(String[] segments, int i, Entry entry) {
+            if (i == segments.length) {
+                exact.add(entry);
+                return;
+            }
+
+            String segment = segments[i];
+            if (isRest(segment)) {
+                rest.add(entry);
+            } else if (isWildcard(segment)) {
+                if (wildcard == null) wildcard = new Node();
+                wildcard.insert(segments, i + 1, entry);
+            } else {
+                literals.computeIfAbsent(segment, k -> new Node()).insert(segments, i + 1, entry);
+            }
+        }
+
+        Entry match(String[] segments, int i, PathContainer path) {
+            if (i == segments.length) {
+                Entry found = first(exact, path);
+                return found != null ? found : first(rest, path);
+            }
+
+            Node literal = literals.get(segments[i]);
+            if (literal != null) {
+                Entry found = literal.match(segments, i + 1, path);
+                if (found != null) return found;
+            }
+
+            if (wildcard != null) {
+                Entry found = wildcard.match(segments, i + 1, path);
+                if (found != null) return found;
+            }
+
+            return first(rest, path);
+        }
+
+        private static Entry first(List<Entry> entries, PathContainer path) {
+            for (Entry entry : entries) {
+                if (entry.matches(path)) return entry;
+            }
+            return null;
+        }
+    }
+}
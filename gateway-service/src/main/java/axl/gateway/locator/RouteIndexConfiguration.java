@@ -0,0 +1,23 @@
+package axl.gateway.locator;
+
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class RouteIndexConfiguration {
+
+    @Bean
+    public RoutePredicateHandlerMapping indexedRoutePredicateHandlerMapping(FilteringWebHandler webHandler,
+                                                                            RouteLocator routeLocator,
+                                                                            GlobalCorsProperties globalCorsProperties,
+                                                                            Environment environment,
+                                                                            DynamicRouteLocator dynamicRouteLocator) {
+        return new IndexedRoutePredicateHandlerMapping(webHandler, routeLocator, globalCorsProperties, environment,
+                dynamicRouteLocator);
+    }
+}
@@ -0,0 +1,39 @@
+package axl.gateway.metrics;
+
+import axl.gateway.balancer.LoadBalancerFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class GatewayMetrics {
+
+    private final Map<String, RouteMetrics> routes = new ConcurrentHashMap<>();
+
+    public RouteMetrics forRoute(Route route) {
+        RouteMetrics metrics = routes.get(route.getId());
+        if (metrics != null) {
+            return metrics;
+        }
+
+        Object service = route.getMetadata().get(LoadBalancerFilter.SERVICE_METADATA);
+        return routes.computeIfAbsent(route.getId(),
+                id -> new RouteMetrics(id, service instanceof String name ? name : ""));
+    }
+
+    public RouteMetrics get(String routeId) {
+        return routes.get(routeId);
+    }
+
+    public Collection<RouteMetrics> getRoutes() {
+        return routes.values();
+    }
+
+    public void retainServices(Set<String> services) {
+        routes.values().removeIf(metrics -> !metrics.getService().isEmpty() && !services.contains(metrics.getService()));
+    }
+}
@@ -0,0 +1,99 @@
+package axl.gateway.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-linear latency histogram in the spirit of HdrHistogram: every power of two of microseconds
+ * is split into 16 linear sub-buckets, which bounds the relative error to about 6%.
+ * Memory is constant and recording is a couple of atomic increments, nothing is allocated.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    // 2^40 µs is about 12 days, anything above is clamped
+    private static final int MAX_MSB = 40;
+
+    private static final int BUCKETS = (MAX_MSB - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder sumMicros = new LongAdder();
+
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(indexOf(micros));
+        count.increment();
+        sumMicros.add(micros);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getSumMicros() {
+        return sumMicros.sum();
+    }
+
+    /**
+     * @return number of recorded values not greater than {@code micros}, within the bucket precision
+     */
+    public long countAtOrBelow(long micros) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (upperBoundOf(i) > micros) break;
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * @return upper bound, in microseconds, of the bucket holding the given percentile (0..100)
+     */
+    public long valueAtPercentile(double percentile) {
+        long total = getCount();
+        if (total == 0) return 0;
+
+        long target = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return upperBoundOf(i);
+            }
+        }
+        return upperBoundOf(BUCKETS - 1);
+    }
+
+    static int indexOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+
+        int msb = Math.min(63 - Long.numberOfLeadingZeros(micros), MAX_MSB);
+        int group = msb - SUB_BUCKET_BITS + 1;
+        int sub = (int) ((micros >>> (msb - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        if (msb == MAX_MSB && micros >>> MAX_MSB > 1) {
+            sub = SUB_BUCKETS - 1;
+        }
+        return group * SUB_BUCKETS + sub;
+    }
+
+    static long lowerBoundOf(int index) {
+        int group = index / SUB_BUCKETS;
+        int sub = index % SUB_BUCKETS;
+        if (group == 0) {
+            return sub;
+        }
+        return (long) (SUB_BUCKETS + sub) << (group - 1);
+    }
+
+    static long upperBoundOf(int index) {
+        return index + 1 < BUCKETS ? lowerBoundOf(index + 1) - 1 : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,344 @@
+package axl.gateway.metrics;
+
+import axl.gateway.accesslog.AccessLog;
+import axl.gateway.cache.ResponseCache;
+import axl.gateway.coalesce.RequestCoalescingFilter;
+import axl.gateway.limit.AdaptiveLimit;
+import axl.gateway.limit.ConcurrencyLimiter;
+import axl.gateway.locator.DynamicRouteLocator;
+import axl.gateway.openapi.OpenApiAggregator;
+import axl.gateway.ratelimit.RateLimiter;
+import axl.gateway.retry.RetryBudget;
+import axl.gateway.retry.RetryFilter;
+import axl.gateway.security.JwtUserHeaderFilter;
+import axl.gateway.security.TokenCache;
+import axl.gateway.service.RegistrySnapshot;
+import axl.gateway.service.ServiceEntry;
+import axl.gateway.service.ServiceInstance;
+import axl.gateway.service.ServiceRegistry;
+import axl.gateway.upstream.UpstreamPools;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.netty.resources.ConnectionPoolMetrics;
+
+import java.net.SocketAddress;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Exposes gateway internals in the Prometheus text exposition format.
+ * Everything is read from counters the components maintain anyway, so a scrape costs no more than the formatting.
+ */
+@RestController
+@RequestMapping("/internal/metrics")
+@RequiredArgsConstructor
+public class MetricsController {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    // histogram bucket bounds exposed to Prometheus, in microseconds
+    private static final long[] BUCKETS = {
+            1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000,
+            1_000_000, 2_500_000, 5_000_000, 10_000_000
+    };
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private static final String[] QUANTILES = {"0.5", "0.9", "0.99", "0.999"};
+
+    private final GatewayMetrics metrics;
+
+    private final ServiceRegistry registry;
+
+    private final DynamicRouteLocator routeLocator;
+
+    private final OpenApiAggregator openApiAggregator;
+
+    private final JwtUserHeaderFilter jwtFilter;
+
+    private final ResponseCache responseCache;
+
+    private final RateLimiter rateLimiter;
+
+    private final UpstreamPools upstreamPools;
+
+    private final RequestCoalescingFilter coalescingFilter;
+
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    private final AccessLog accessLog;
+
+    private final RetryFilter retryFilter;
+
+    private final RetryBudget retryBudget;
+
+    @GetMapping(produces = CONTENT_TYPE)
+    public String scrape() {
+        RegistrySnapshot snapshot = registry.getSnapshot();
+        metrics.retainServices(snapshot.services().keySet());
+
+        StringBuilder out = new StringBuilder(4096);
+        writeRoutes(out);
+        writeRegistry(out, snapshot);
+        writeRouteLocator(out);
+        writeOpenApi(out);
+        writeTokenCache(out);
+        writeResponseCache(out);
+        writeRateLimiter(out);
+        writeUpstreamPools(out);
+        writeCoalescing(out);
+        writeConcurrencyLimits(out);
+        writeAccessLog(out);
+        writeRetries(out);
+        return out.toString();
+    }
+
+    private void writeRoutes(StringBuilder out) {
+        header(out, "gateway_route_requests_total", "counter", "Requests proxied per route");
+        for (RouteMetrics route : metrics.getRoutes()) {
+            sample(out, "gateway_route_requests_total", labels(route), route.getRequests().sum());
+        }
+
+        header(out, "gateway_route_errors_total", "counter", "Requests per route that ended with a 5xx or an error");
+        for (RouteMetrics route : metrics.getRoutes()) {
+            sample(out, "gateway_route_errors_total", labels(route), route.getErrors().sum());
+        }
+
+        header(out, "gateway_route_in_flight", "gauge", "Requests per route currently in flight");
+        for (RouteMetrics route : metrics.getRoutes()) {
+            sample(out, "gateway_route_in_flight", labels(route), route.getInFlight().get());
+        }
+
+        header(out, "gateway_route_latency_seconds", "histogram", "End to end latency per route");
+        for (RouteMetrics route : metrics.getRoutes()) {
+            LatencyHistogram histogram = route.getLatency();
+            String labels = labels(route);
+            long count = histogram.getCount();
+
+            for (long bound : BUCKETS) {
+                String le = labels + ",le=\"" + seconds(bound) + "\"";
+                sample(out, "gateway_route_latency_seconds_bucket", le, Math.min(count, histogram.countAtOrBelow(bound)));
+            }
+            sample(out, "gateway_route_latency_seconds_bucket", labels + ",le=\"+Inf\"", count);
+            sample(out, "gateway_route_latency_seconds_sum", labels, seconds(histogram.getSumMicros()));
+            sample(out, "gateway_route_latency_seconds_count", labels, count);
+        }
+
+        header(out, "gateway_route_latency_quantile_seconds", "gauge", "Latency percentiles per route since start");
+        for (RouteMetrics route : metrics.getRoutes()) {
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                String labels = labels(route) + ",quantile=\"" + QUANTILES[i] + "\"";
+                sample(out, "gateway_route_latency_quantile_seconds", labels,
+                        seconds(route.getLatency().valueAtPercentile(PERCENTILES[i])));
+            }
+        }
+    }
+
+    private void writeRegistry(StringBuilder out, RegistrySnapshot snapshot) {
+        int instances = 0;
+        int unavailable = 0;
+        int warming = 0;
+        long now = System.currentTimeMillis();
+        for (ServiceEntry entry : snapshot.services().values()) {
+            for (ServiceInstance instance : entry.instances()) {
+                instances++;
+                if (!instance.getHealth().isAvailable(now)) unavailable++;
+                if (!instance.isWarm()) warming++;
+            }
+        }
+
+        header(out, "gateway_registry_services", "gauge", "Registered services");
+        sample(out, "gateway_registry_services", null, snapshot.services().size());
+        header(out, "gateway_registry_instances", "gauge", "Registered service instances");
+        sample(out, "gateway_registry_instances", null, instances);
+        header(out, "gateway_registry_unavailable_instances", "gauge", "Instances that are unhealthy or ejected");
+        sample(out, "gateway_registry_unavailable_instances", null, unavailable);
+        header(out, "gateway_registry_warming_instances", "gauge", "Instances still in their slow-start window");
+        sample(out, "gateway_registry_warming_instances", null, warming);
+        header(out, "gateway_registry_version", "gauge", "Version of the current registry snapshot");
+        sample(out, "gateway_registry_version", null, snapshot.version());
+    }
+
+    private void writeRouteLocator(StringBuilder out) {
+        header(out, "gateway_route_refresh_total", "counter", "Route table refreshes");
+        sample(out, "gateway_route_refresh_total", null, routeLocator.getRefreshCount().sum());
+        header(out, "gateway_route_refresh_seconds_total", "counter", "Time spent refreshing the route table");
+        sample(out, "gateway_route_refresh_seconds_total", null, nanosToSeconds(routeLocator.getRefreshTotalNanos().get()));
+        header(out, "gateway_route_refresh_last_seconds", "gauge", "Duration of the last route table refresh");
+        sample(out, "gateway_route_refresh_last_seconds", null, nanosToSeconds(routeLocator.getLastRefreshNanos()));
+        header(out, "gateway_route_rebuilt_services_total", "counter", "Services whose routes were recompiled on refresh");
+        sample(out, "gateway_route_rebuilt_services_total", null, routeLocator.getRebuiltServices().sum());
+        header(out, "gateway_route_index_routes", "gauge", "Routes in the path index");
+        sample(out, "gateway_route_index_routes", null, routeLocator.getIndex().size());
+    }
+
+    private void writeOpenApi(StringBuilder out) {
+        header(out, "gateway_openapi_aggregations_total", "counter", "OpenAPI documentation rebuilds");
+        sample(out, "gateway_openapi_aggregations_total", null, openApiAggregator.getAggregationCount().sum());
+        header(out, "gateway_openapi_aggregation_seconds_total", "counter", "Time spent rebuilding the OpenAPI documentation");
+        sample(out, "gateway_openapi_aggregation_seconds_total", null,
+                nanosToSeconds(openApiAggregator.getAggregationTotalNanos().get()));
+        header(out, "gateway_openapi_aggregation_last_seconds", "gauge", "Duration of the last OpenAPI rebuild");
+        sample(out, "gateway_openapi_aggregation_last_seconds", null,
+                nanosToSeconds(openApiAggregator.getLastAggregationNanos()));
+    }
+
+    private void writeTokenCache(StringBuilder out) {
+        TokenCache cache = jwtFilter.getCache();
+        if (cache == null) return;
+
+        header(out, "gateway_jwt_cache_hits_total", "counter", "Access tokens answered from the cache");
+        sample(out, "gateway_jwt_cache_hits_total", null, cache.getHits().sum());
+        header(out, "gateway_jwt_cache_misses_total", "counter", "Access tokens that had to be verified");
+        sample(out, "gateway_jwt_cache_misses_total", null, cache.getMisses().sum());
+        header(out, "gateway_jwt_cache_evictions_total", "counter", "Access tokens evicted from the cache");
+        sample(out, "gateway_jwt_cache_evictions_total", null, cache.getEvictions().sum());
+        header(out, "gateway_jwt_cache_size", "gauge", "Access tokens in the cache");
+        sample(out, "gateway_jwt_cache_size", null, cache.size());
+    }
+
+    private void writeResponseCache(StringBuilder out) {
+        header(out, "gateway_response_cache_hits_total", "counter", "Responses served from the cache");
+        sample(out, "gateway_response_cache_hits_total", null, responseCache.getHits().sum());
+        header(out, "gateway_response_cache_misses_total", "counter", "Cacheable requests that missed");
+        sample(out, "gateway_response_cache_misses_total", null, responseCache.getMisses().sum());
+        header(out, "gateway_response_cache_evictions_total", "counter", "Responses evicted from the cache");
+        sample(out, "gateway_response_cache_evictions_total", null, responseCache.getEvictions().sum());
+        header(out, "gateway_response_cache_bytes", "gauge", "Bytes held by cached responses");
+        sample(out, "gateway_response_cache_bytes", null, responseCache.getBytes().get());
+        header(out, "gateway_response_cache_entries", "gauge", "Cached responses");
+        sample(out, "gateway_response_cache_entries", null, responseCache.size());
+    }
+
+    private void writeRateLimiter(StringBuilder out) {
+        header(out, "gateway_rate_limit_allowed_total", "counter", "Requests admitted by the rate limiter");
+        sample(out, "gateway_rate_limit_allowed_total", null, rateLimiter.getAllowed().sum());
+        header(out, "gateway_rate_limit_rejected_total", "counter", "Requests rejected by the rate limiter");
+        sample(out, "gateway_rate_limit_rejected_total", null, rateLimiter.getRejected().sum());
+        header(out, "gateway_rate_limit_overflow_total", "counter", "Requests charged to the shared overflow bucket while the bucket map was full");
+        sample(out, "gateway_rate_limit_overflow_total", null, rateLimiter.getOverflowed().sum());
+        header(out, "gateway_rate_limit_buckets", "gauge", "Active rate limit buckets");
+        sample(out, "gateway_rate_limit_buckets", null, rateLimiter.size());
+    }
+
+    private void writeCoalescing(StringBuilder out) {
+        header(out, "gateway_coalesce_leaders_total", "counter", "Coalescable requests that went upstream");
+        sample(out, "gateway_coalesce_leaders_total", null, coalescingFilter.getLeaders().sum());
+        header(out, "gateway_coalesce_coalesced_total", "counter", "Requests answered with the response of an identical in-flight request");
+        sample(out, "gateway_coalesce_coalesced_total", null, coalescingFilter.getCoalesced().sum());
+        header(out, "gateway_coalesce_fallbacks_total", "counter", "Waiting requests that had to make their own upstream call");
+        sample(out, "gateway_coalesce_fallbacks_total", null, coalescingFilter.getFallbacks().sum());
+    }
+
+    private void writeConcurrencyLimits(StringBuilder out) {
+        header(out, "gateway_concurrency_limit", "gauge", "Current adaptive concurrency limit per service");
+        for (AdaptiveLimit limit : concurrencyLimiter.getLimits()) {
+            sample(out, "gateway_concurrency_limit", serviceLabel(limit), limit.getCurrentLimit());
+        }
+
+        header(out, "gateway_concurrency_in_flight", "gauge", "Requests per service holding a concurrency slot");
+        for (AdaptiveLimit limit : concurrencyLimiter.getLimits()) {
+            sample(out, "gateway_concurrency_in_flight", serviceLabel(limit), limit.getInFlight().get());
+        }
+
+        header(out, "gateway_concurrency_admitted_total", "counter", "Requests admitted by the concurrency limit per service");
+        for (AdaptiveLimit limit : concurrencyLimiter.getLimits()) {
+            sample(out, "gateway_concurrency_admitted_total", serviceLabel(limit), limit.getAdmitted().sum());
+        }
+
+        header(out, "gateway_concurrency_shed_total", "counter", "Requests rejected with 503 per service and priority");
+        for (AdaptiveLimit limit : concurrencyLimiter.getLimits()) {
+            sample(out, "gateway_concurrency_shed_total", serviceLabel(limit) + ",priority=\"authenticated\"",
+                    limit.getShedAuthenticated().sum());
+            sample(out, "gateway_concurrency_shed_total", serviceLabel(limit) + ",priority=\"anonymous\"",
+                    limit.getShedAnonymous().sum());
+        }
+    }
+
+    private void writeAccessLog(StringBuilder out) {
+        header(out, "gateway_access_log_written_total", "counter", "Access log records written to disk");
+        sample(out, "gateway_access_log_written_total", null, accessLog.getWritten().sum());
+        header(out, "gateway_access_log_dropped_total", "counter", "Access log records dropped on a full buffer or a failed write");
+        sample(out, "gateway_access_log_dropped_total", null, accessLog.getDropped().sum());
+        header(out, "gateway_access_log_write_errors_total", "counter", "Failed access log writes");
+        sample(out, "gateway_access_log_write_errors_total", null, accessLog.getWriteErrors().sum());
+    }
+
+    private void writeRetries(StringBuilder out) {
+        header(out, "gateway_retry_retries_total", "counter", "Requests sent again after a connection failure");
+        sample(out, "gateway_retry_retries_total", null, retryFilter.getRetries().sum());
+        header(out, "gateway_retry_hedges_total", "counter", "Hedged requests sent to a second instance");
+        sample(out, "gateway_retry_hedges_total", null, retryFilter.getHedges().sum());
+        header(out, "gateway_retry_hedge_wins_total", "counter", "Hedged requests that answered before the original one");
+        sample(out, "gateway_retry_hedge_wins_total", null, retryFilter.getHedgeWins().sum());
+        header(out, "gateway_retry_budget_exhausted_total", "counter", "Retries and hedges refused by the retry budget");
+        sample(out, "gateway_retry_budget_exhausted_total", null, retryBudget.getExhausted().sum());
+
+        header(out, "gateway_retry_budget_tokens", "gauge", "Retries and hedges currently available per service");
+        for (Map.Entry<String, Double> entry : retryBudget.getBalances().entrySet()) {
+            sample(out, "gateway_retry_budget_tokens", "service=\"" + escape(entry.getKey()) + "\"",
+                    String.format(Locale.ROOT, "%.3f", entry.getValue()));
+        }
+    }
+
+    private void writeUpstreamPools(StringBuilder out) {
+        writePoolGauge(out, "gateway_upstream_pool_active", "Connections in use per dedicated upstream pool",
+                ConnectionPoolMetrics::acquiredSize);
+        writePoolGauge(out, "gateway_upstream_pool_idle", "Idle connections per dedicated upstream pool",
+                ConnectionPoolMetrics::idleSize);
+        writePoolGauge(out, "gateway_upstream_pool_pending", "Requests waiting for a connection per dedicated upstream pool",
+                ConnectionPoolMetrics::pendingAcquireSize);
+        writePoolGauge(out, "gateway_upstream_pool_max", "Connection limit per dedicated upstream pool",
+                ConnectionPoolMetrics::maxAllocatedSize);
+    }
+
+    private void writePoolGauge(StringBuilder out, String name, String help, ToIntFunction<ConnectionPoolMetrics> value) {
+        header(out, name, "gauge", help);
+        for (UpstreamPools.Pool pool : upstreamPools.getPools()) {
+            for (Map.Entry<SocketAddress, ConnectionPoolMetrics> entry : pool.metrics().entrySet()) {
+                String labels = "service=\"" + escape(pool.service()) + "\",address=\"" + escape(entry.getKey().toString()) + "\"";
+                sample(out, name, labels, value.applyAsInt(entry.getValue()));
+            }
+        }
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        sample(out, name, labels, Long.toString(value));
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, String value) {
+        out.append(name);
+        if (labels != null) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value).append('\n');
+    }
+
+    private static String labels(RouteMetrics route) {
+        return "route=\"" + escape(route.getRouteId()) + "\",service=\"" + escape(route.getService()) + "\"";
+    }
+
+    private static String serviceLabel(AdaptiveLimit limit) {
+        return "service=\"" + escape(limit.getService()) + "\"";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String seconds(long micros) {
+        return String.format(Locale.ROOT, "%.6f", micros / 1e6);
+    }
+
+    private static String nanosToSeconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+}
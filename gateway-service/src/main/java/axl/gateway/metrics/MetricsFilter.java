@@ -0,0 +1,48 @@
+package axl.gateway.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+@Component
+@RequiredArgsConstructor
+public class MetricsFilter implements GlobalFilter, Ordered {
+
+    private final GatewayMetrics metrics;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+
+        RouteMetrics routeMetrics = metrics.forRoute(route);
+        routeMetrics.getInFlight().incrementAndGet();
+        long started = System.nanoTime();
+
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    routeMetrics.getInFlight().decrementAndGet();
+
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    boolean error = signal == SignalType.ON_ERROR || (status != null && status.is5xxServerError());
+                    routeMetrics.record(System.nanoTime() - started, error);
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        // first of the gateway filters, so that the whole filter chain is measured
+        return -200;
+    }
+}
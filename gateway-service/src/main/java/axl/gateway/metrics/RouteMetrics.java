@@ -0,0 +1,35 @@
+package axl.gateway.metrics;
+
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+@Getter
+public class RouteMetrics {
+
+    private final String routeId;
+
+    private final String service;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder errors = new LongAdder();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public RouteMetrics(String routeId, String service) {
+        this.routeId = routeId;
+        this.service = service;
+    }
+
+    public void record(long nanos, boolean error) {
+        latency.record(nanos);
+        requests.increment();
+        if (error) {
+            errors.increment();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package axl.gateway.openapi;
+
+import org.springframework.util.DigestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A response body prepared once, together with its gzip and deflate variants.
+ */
+public record EncodedContent(Variant identity, Variant gzip, Variant deflate) {
+
+    public static EncodedContent of(byte[] raw) {
+        String hash = DigestUtils.md5DigestAsHex(raw);
+
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream(raw.length / 4);
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream(raw.length / 4);
+        try {
+            try (OutputStream out = new GZIPOutputStream(gzipped)) {
+                out.write(raw);
+            }
+            try (OutputStream out = new DeflaterOutputStream(deflated)) {
+                out.write(raw);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return new EncodedContent(
+                new Variant(null, raw, "\"" + hash + "\""),
+                new Variant("gzip", gzipped.toByteArray(), "\"" + hash + "-gzip\""),
+                new Variant("deflate", deflated.toByteArray(), "\"" + hash + "-deflate\"")
+        );
+    }
+
+    public Variant select(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return identity;
+        }
+
+        boolean gzipAccepted = false;
+        boolean deflateAccepted = false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (tokens.length > 1 && tokens[1].trim().replace(" ", "").matches("q=0(\\.0*)?")) {
+                continue;
+            }
+
+            if (coding.equalsIgnoreCase("gzip") || coding.equals("*")) {
+                gzipAccepted = true;
+            } else if (coding.equalsIgnoreCase("deflate")) {
+                deflateAccepted = true;
+            }
+        }
+
+        if (gzipAccepted) return gzip;
+        if (deflateAccepted) return deflate;
+        return identity;
+    }
+
+    public record Variant(String encoding, byte[] bytes, String etag) {
+
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) return false;
+
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.equals("*")) return true;
+                if (tag.startsWith("W/")) tag = tag.substring(2);
+                if (tag.equals(etag)) return true;
+            }
+            return false;
+        }
+    }
+}
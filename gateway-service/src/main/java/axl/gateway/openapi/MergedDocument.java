@@ -0,0 +1,167 @@
+package axl.gateway.openapi;
+
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.parameters.Parameter;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+import io.swagger.v3.oas.models.security.SecurityScheme;
+import io.swagger.v3.oas.models.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+/**
+ * The aggregated document kept as the contributions of every service, so that a changed service is
+ * patched in without merging the specs of all the others again.
+ * An entry declared by several services belongs to the one added first, and passes to the next one
+ * when its owner goes away.
+ */
+@Slf4j
+class MergedDocument {
+
+    private final Section<PathItem> paths = new Section<>("Path");
+
+    @SuppressWarnings("rawtypes")
+    private final Section<Schema> schemas = new Section<>("Schema");
+
+    private final Section<Parameter> parameters = new Section<>("Parameter");
+
+    private final Section<ApiResponse> responses = new Section<>("Response");
+
+    private final Section<SecurityScheme> securitySchemes = new Section<>("SecurityScheme");
+
+    private final Section<Tag> tags = new Section<>("Tag");
+
+    private final Map<String, OpenAPI> services = new LinkedHashMap<>();
+
+    // a service keeps its precedence when its spec changes
+    private final Map<String, Long> ranks = new LinkedHashMap<>();
+
+    private long nextRank;
+
+    public List<String> services() {
+        return List.copyOf(services.keySet());
+    }
+
+    /**
+     * Replaces the contribution of the service, the other services are not looked at.
+     */
+    public void put(String service, OpenAPI api) {
+        long rank = ranks.computeIfAbsent(service, k -> nextRank++);
+        OpenAPI previous = services.put(service, api);
+        apply(previous, rank, false);
+        apply(api, rank, true);
+    }
+
+    public void remove(String service) {
+        Long rank = ranks.remove(service);
+        OpenAPI previous = services.remove(service);
+        if (rank != null) {
+            apply(previous, rank, false);
+        }
+    }
+
+    /**
+     * Fills the given document with the merged entries. The maps are copied: a document handed out
+     * before is not changed by later patches.
+     */
+    public OpenAPI build(OpenAPI document) {
+        Paths merged = new Paths();
+        paths.forEachOwner(merged::addPathItem);
+        document.paths(merged);
+
+        Components components = new Components();
+        schemas.forEachOwner(components::addSchemas);
+        parameters.forEachOwner(components::addParameters);
+        responses.forEachOwner(components::addResponses);
+        securitySchemes.forEachOwner(components::addSecuritySchemes);
+        document.components(components);
+
+        tags.forEachOwner((name, tag) -> document.addTagsItem(tag));
+
+        services.values().forEach(api -> {
+            if (api != null && api.getSecurity() != null) {
+                api.getSecurity().forEach(document::addSecurityItem);
+            }
+        });
+        return document;
+    }
+
+    private void apply(OpenAPI api, long rank, boolean claim) {
+        if (api == null) return;
+
+        paths.apply(api.getPaths(), rank, claim);
+
+        Components src = api.getComponents();
+        if (src != null) {
+            schemas.apply(src.getSchemas(), rank, claim);
+            parameters.apply(withoutUserId(src.getParameters()), rank, claim);
+            responses.apply(src.getResponses(), rank, claim);
+            securitySchemes.apply(src.getSecuritySchemes(), rank, claim);
+        }
+
+        if (api.getTags() != null) {
+            Map<String, Tag> byName = new LinkedHashMap<>();
+            api.getTags().forEach(tag -> byName.putIfAbsent(tag.getName(), tag));
+            tags.apply(byName, rank, claim);
+        }
+    }
+
+    private static Map<String, Parameter> withoutUserId(Map<String, Parameter> parameters) {
+        if (parameters == null) return null;
+
+        Map<String, Parameter> filtered = new LinkedHashMap<>(parameters);
+        filtered.values().removeIf(parameter -> "X-User-Id".equalsIgnoreCase(parameter.getName()));
+        return filtered;
+    }
+
+    private static final class Section<T> {
+
+        private final String kind;
+
+        // the claims on every entry by rank, the lowest one is in the document
+        private final Map<String, TreeMap<Long, T>> claims = new LinkedHashMap<>();
+
+        private Section(String kind) {
+            this.kind = kind;
+        }
+
+        void apply(Map<String, ? extends T> entries, long rank, boolean claim) {
+            if (entries == null) return;
+
+            entries.forEach((key, value) -> {
+                if (claim) {
+                    claim(key, rank, value);
+                } else {
+                    release(key, rank);
+                }
+            });
+        }
+
+        void forEachOwner(BiConsumer<String, T> action) {
+            claims.forEach((key, claimed) -> action.accept(key, claimed.firstEntry().getValue()));
+        }
+
+        private void claim(String key, long rank, T value) {
+            TreeMap<Long, T> claimed = claims.computeIfAbsent(key, k -> new TreeMap<>());
+            if (!claimed.isEmpty()) {
+                log.warn("{} conflict: {}", kind, key);
+            }
+            claimed.put(rank, value);
+        }
+
+        private void release(String key, long rank) {
+            TreeMap<Long, T> claimed = claims.get(key);
+            if (claimed != null && claimed.remove(rank) != null && claimed.isEmpty()) {
+                claims.remove(key);
+            }
+        }
+    }
+}
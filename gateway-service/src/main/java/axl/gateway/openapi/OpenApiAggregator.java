@@ -1,28 +1,50 @@
 package axl.gateway.openapi;
 
+import axl.gateway.service.ServiceDefinition;
 import axl.gateway.service.ServiceRegistry;
-import io.swagger.v3.oas.models.Components;
 import io.swagger.v3.oas.models.OpenAPI;
-import io.swagger.v3.oas.models.Paths;
 import io.swagger.v3.oas.models.info.Info;
 import io.swagger.v3.oas.models.parameters.Parameter;
 import io.swagger.v3.oas.models.servers.Server;
 import io.swagger.v3.parser.OpenAPIV3Parser;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Component
-@Setter
 @RequiredArgsConstructor
 public class OpenApiAggregator {
 
@@ -30,125 +52,260 @@ public class OpenApiAggregator {
     private final OpenApiProperties props;
     private final WebClient webClient = WebClient.create();
 
-    private OpenAPI documentation = null;
+    private final Map<String, ServiceSpec> specs = new ConcurrentHashMap<>();
+
+    private final AtomicReference<Mono<OpenAPI>> inFlight = new AtomicReference<>();
+
+    private final AtomicLong version = new AtomicLong();
+
+    private volatile OpenAPI documentation = null;
+
+    private final MergedDocument document = new MergedDocument();
+
+    // content hash of every spec in the merged document
+    private final Map<String, String> mergedHashes = new HashMap<>();
+
+    private OpenAPI merged;
+
+    private List<String> mergedFingerprint;
+
+    private final Map<String, SpecStatus> statuses = new ConcurrentHashMap<>();
+
+    private Scheduler parserScheduler;
+
+    @Getter
+    private final LongAdder aggregationCount = new LongAdder();
+
+    @Getter
+    private final AtomicLong aggregationTotalNanos = new AtomicLong();
+
+    @Getter
+    private volatile long lastAggregationNanos;
+
+    @PostConstruct
+    public void init() {
+        parserScheduler = Schedulers.newBoundedElastic(props.getParserThreads(), 1000, "openapi-parser");
+    }
+
+    @PreDestroy
+    public void close() {
+        parserScheduler.dispose();
+    }
 
     public Mono<OpenAPI> aggregate() {
-        if (documentation != null) {
-            return Mono.just(documentation);
+        OpenAPI current = documentation;
+        if (current != null) {
+            return Mono.just(current);
         }
 
-        return Flux.fromIterable(registry.getServices().values())
-                .flatMap(service -> {
-                    if (service.getOpenApiUrl() == null) return Mono.empty();
-                    return webClient.get()
-                            .uri(service.getOpenApiUrl())
-                            .retrieve()
-                            .bodyToMono(String.class)
-                            .map(specJson -> new OpenAPIV3Parser().readContents(specJson).getOpenAPI())
-                            .map(this::removeUserIdHeaders) // <-- удаляем X-User-Id здесь
-                            .onErrorResume(e -> {
-                                log.error("Failed to fetch OpenAPI for {}: {}", service.getName(), e.getMessage());
-                                return Mono.empty();
-                            });
-                })
+        // concurrent callers share one in-flight aggregation
+        while (true) {
+            Mono<OpenAPI> running = inFlight.get();
+            if (running != null) {
+                return running;
+            }
+
+            Mono<OpenAPI> created = Mono.defer(this::rebuild)
+                    .doFinally(signal -> inFlight.set(null))
+                    .cache();
+            if (inFlight.compareAndSet(null, created)) {
+                return created;
+            }
+        }
+    }
+
+    public void invalidate() {
+        version.incrementAndGet();
+        documentation = null;
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public Collection<SpecStatus> getStatuses() {
+        return statuses.values();
+    }
+
+    private Mono<OpenAPI> rebuild() {
+        long startedAt = version.get();
+        long started = System.nanoTime();
+        List<ServiceDefinition> services = registry.getServices().keySet().stream()
+                .map(registry::get)
+                .filter(Objects::nonNull)
+                .filter(service -> service.getOpenApiUrl() != null)
+                .toList();
+
+        Set<String> names = services.stream().map(ServiceDefinition::getName).collect(Collectors.toSet());
+        specs.keySet().retainAll(names);
+        statuses.keySet().retainAll(names);
+
+        return Flux.fromIterable(services)
+                .flatMapSequential(this::fetch)
                 .collectList()
+                // building the document copies every merged entry, keep it off the event loop as well
+                .publishOn(parserScheduler)
                 .map(list -> {
-                    OpenAPI aggregated = new OpenAPI()
-                            .paths(new Paths())
-                            .components(new Components())
-                            .info(new Info()
-                                    .title(props.getTitle())
-                                    .description(props.getDescription())
-                                    .version(props.getVersion())
-                            );
+                    List<String> fingerprint = new ArrayList<>(list.size());
+                    list.forEach(spec -> fingerprint.add(spec.name() + "@" + spec.contentHash()));
+                    statuses.values().stream()
+                            .filter(status -> !status.healthy())
+                            .forEach(status -> fingerprint.add(status.service() + "!" + status.state()));
 
-                    if (props.getServers() != null) {
-                        props.getServers().forEach(s ->
-                                aggregated.addServersItem(new Server()
-                                        .url(s.getUrl())
-                                        .description(s.getDescription()))
-                        );
+                    OpenAPI aggregated;
+                    synchronized (this) {
+                        if (merged == null || !fingerprint.equals(mergedFingerprint)) {
+                            patch(list);
+                            merged = document.build(header());
+                            merged.addExtension("x-gateway-services", statusExtension());
+                            mergedFingerprint = fingerprint;
+                        }
+                        aggregated = merged;
                     }
 
-                    list.forEach(parsed -> {
-                        if (parsed == null) return;
-
-                        if (parsed.getPaths() != null) {
-                            parsed.getPaths().forEach((k, v) -> {
-                                if (aggregated.getPaths().containsKey(k)) {
-                                    log.warn("Path conflict: {}", k);
-                                } else {
-                                    aggregated.getPaths().addPathItem(k, v);
-                                }
-                            });
-                        }
+                    if (version.get() == startedAt) {
+                        documentation = aggregated;
+                    }
 
-                        Components src = parsed.getComponents();
-                        if (src != null) {
-                            if (src.getSchemas() != null) {
-                                src.getSchemas().forEach((k, v) -> {
-                                    if (aggregated.getComponents().getSchemas() != null &&
-                                            aggregated.getComponents().getSchemas().containsKey(k)) {
-                                        log.warn("Schema conflict: {}", k);
-                                    } else {
-                                        aggregated.getComponents().addSchemas(k, v);
-                                    }
-                                });
-                            }
-                            if (src.getParameters() != null) {
-                                src.getParameters().forEach((k, v) -> {
-                                    if ("X-User-Id".equalsIgnoreCase(v.getName())) return;
-                                    if (aggregated.getComponents().getParameters() != null &&
-                                            aggregated.getComponents().getParameters().containsKey(k)) {
-                                        log.warn("Parameter conflict: {}", k);
-                                    } else {
-                                        aggregated.getComponents().addParameters(k, v);
-                                    }
-                                });
-                            }
-                            if (src.getResponses() != null) {
-                                src.getResponses().forEach((k, v) -> {
-                                    if (aggregated.getComponents().getResponses() != null &&
-                                            aggregated.getComponents().getResponses().containsKey(k)) {
-                                        log.warn("Response conflict: {}", k);
-                                    } else {
-                                        aggregated.getComponents().addResponses(k, v);
-                                    }
-                                });
-                            }
-                            if (src.getSecuritySchemes() != null) {
-                                src.getSecuritySchemes().forEach((k, v) -> {
-                                    if (aggregated.getComponents().getSecuritySchemes() != null &&
-                                            aggregated.getComponents().getSecuritySchemes().containsKey(k)) {
-                                        log.warn("SecurityScheme conflict: {}", k);
-                                    } else {
-                                        aggregated.getComponents().addSecuritySchemes(k, v);
-                                    }
-                                });
-                            }
-                        }
+                    long elapsed = System.nanoTime() - started;
+                    lastAggregationNanos = elapsed;
+                    aggregationTotalNanos.addAndGet(elapsed);
+                    aggregationCount.increment();
+                    return aggregated;
+                });
+    }
 
-                        if (parsed.getTags() != null) {
-                            parsed.getTags().forEach(t -> {
-                                if (aggregated.getTags() != null &&
-                                        aggregated.getTags().stream().anyMatch(existing -> existing.getName().equals(t.getName()))) {
-                                    log.warn("Tag conflict: {}", t.getName());
-                                } else {
-                                    aggregated.addTagsItem(t);
-                                }
-                            });
-                        }
+    private Mono<ServiceSpec> fetch(ServiceDefinition service) {
+        ServiceSpec cached = specs.get(service.getName());
+        if (cached != null && !cached.url().equals(service.getOpenApiUrl())) {
+            cached = null;
+        }
+        ServiceSpec previous = cached;
+        long started = System.nanoTime();
 
-                        if (parsed.getSecurity() != null) {
-                            parsed.getSecurity().forEach(aggregated::addSecurityItem);
-                        }
-                    });
+        return webClient.get()
+                .uri(service.getOpenApiUrl())
+                .headers(headers -> {
+                    if (previous != null && previous.etag() != null) {
+                        headers.setIfNoneMatch(previous.etag());
+                    }
+                })
+                .exchangeToMono(response -> {
+                    if (response.statusCode().value() == HttpStatus.NOT_MODIFIED.value() && previous != null) {
+                        status(service, SpecStatus.State.UNCHANGED, false, null, 0, started);
+                        return response.releaseBody().thenReturn(previous);
+                    }
+                    if (!response.statusCode().is2xxSuccessful()) {
+                        return response.createError();
+                    }
 
-                    documentation = aggregated;
-                    return aggregated;
+                    String etag = response.headers().asHttpHeaders().getETag();
+                    // buffers are collected as they arrive and the fetch fails as soon as the limit is crossed
+                    return DataBufferUtils.join(response.bodyToFlux(DataBuffer.class), props.getMaxSpecBytes())
+                            .map(OpenApiAggregator::toBytes)
+                            .publishOn(parserScheduler)
+                            .map(bytes -> parse(service, previous, etag, bytes, started));
+                })
+                .timeout(Duration.ofMillis(props.getFetchTimeoutMs()))
+                .doOnNext(spec -> specs.put(service.getName(), spec))
+                .onErrorResume(e -> {
+                    SpecStatus.State state = e instanceof TimeoutException ? SpecStatus.State.TIMEOUT
+                            : e instanceof DataBufferLimitException ? SpecStatus.State.TOO_LARGE
+                            : SpecStatus.State.FAILED;
+                    status(service, state, previous != null, e.getMessage(), 0, started);
+                    log.error("Failed to fetch OpenAPI for {}: {} {}", service.getName(), state, e.getMessage());
+                    return previous != null ? Mono.just(previous) : Mono.empty();
                 });
     }
 
+    private ServiceSpec parse(ServiceDefinition service, ServiceSpec previous, String etag, byte[] bytes, long started) {
+        String contentHash = DigestUtils.md5DigestAsHex(bytes);
+        if (previous != null && previous.contentHash().equals(contentHash)) {
+            status(service, SpecStatus.State.UNCHANGED, false, null, bytes.length, started);
+            return previous.withEtag(etag);
+        }
+
+        String specJson = new String(bytes, StandardCharsets.UTF_8);
+        OpenAPI api = removeUserIdHeaders(new OpenAPIV3Parser().readContents(specJson).getOpenAPI());
+        status(service, SpecStatus.State.OK, false, null, bytes.length, started);
+        return new ServiceSpec(service.getName(), service.getOpenApiUrl(), etag, contentHash, api);
+    }
+
+    private void status(ServiceDefinition service, SpecStatus.State state, boolean stale, String message,
+                        int bytes, long started) {
+        statuses.put(service.getName(), new SpecStatus(service.getName(), state, stale, message, bytes,
+                (System.nanoTime() - started) / 1_000_000, Instant.now()));
+    }
+
+    private Map<String, Object> statusExtension() {
+        Map<String, Object> extension = new TreeMap<>();
+        statuses.values().forEach(status -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("state", status.state());
+            if (status.stale()) entry.put("stale", true);
+            if (status.message() != null) entry.put("message", status.message());
+            extension.put(status.service(), entry);
+        });
+        return extension;
+    }
+
+    private static byte[] toBytes(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    /**
+     * Patches only the services that were added, removed or changed since the last merge into the document.
+     */
+    private void patch(List<ServiceSpec> list) {
+        Map<String, ServiceSpec> current = new HashMap<>();
+        list.forEach(spec -> current.put(spec.name(), spec));
+
+        for (String name : document.services()) {
+            if (!current.containsKey(name)) {
+                document.remove(name);
+                mergedHashes.remove(name);
+            }
+        }
+        for (ServiceSpec spec : list) {
+            if (!spec.contentHash().equals(mergedHashes.get(spec.name()))) {
+                document.put(spec.name(), spec.api());
+                mergedHashes.put(spec.name(), spec.contentHash());
+            }
+        }
+    }
+
+    OpenAPI merge(List<OpenAPI> list) {
+        MergedDocument full = new MergedDocument();
+        for (int i = 0; i < list.size(); i++) {
+            full.put(String.valueOf(i), list.get(i));
+        }
+        return full.build(header());
+    }
+
+    private OpenAPI header() {
+        OpenAPI header = new OpenAPI()
+                .info(new Info()
+                        .title(props.getTitle())
+                        .description(props.getDescription())
+                        .version(props.getVersion())
+                );
+
+        if (props.getServers() != null) {
+            props.getServers().forEach(s ->
+                    header.addServersItem(new Server()
+                            .url(s.getUrl())
+                            .description(s.getDescription()))
+            );
+        }
+        return header;
+    }
+
     private OpenAPI removeUserIdHeaders(OpenAPI openAPI) {
         if (openAPI == null) return null;
 
@@ -177,4 +334,11 @@ public class OpenApiAggregator {
 
         return openAPI;
     }
+
+    private record ServiceSpec(String name, String url, String etag, String contentHash, OpenAPI api) {
+
+        ServiceSpec withEtag(String etag) {
+            return new ServiceSpec(name, url, etag, contentHash, api);
+        }
+    }
 }
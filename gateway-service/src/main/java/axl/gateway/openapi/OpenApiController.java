@@ -1,9 +1,12 @@
 package axl.gateway.openapi;
 
 import io.swagger.v3.core.util.Json;
+import io.swagger.v3.oas.models.OpenAPI;
 import lombok.RequiredArgsConstructor;
 import org.springframework.core.io.ClassPathResource;
-import org.springframework.core.io.Resource;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -13,43 +16,118 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
 @RestController
 @RequiredArgsConstructor
 public class OpenApiController {
 
+    private static final byte[] UNAUTHORIZED = "Unauthorized".getBytes(StandardCharsets.UTF_8);
+
     private final OpenApiAggregator aggregator;
     private final OpenApiProperties props;
 
+    private final EncodedContent swaggerUiPage = EncodedContent.of(readResource("swagger-ui.html"));
+
+    private volatile SerializedSpec serialized;
+
     private boolean checkToken(String token) {
         return props.getToken() == null || props.getToken().isEmpty() || props.getToken().equals(token);
     }
 
     @GetMapping("/api/v1/docs")
-    public Mono<ResponseEntity<String>> getAggregatedSpec(
+    public Mono<ResponseEntity<DataBuffer>> getAggregatedSpec(
+            @RequestHeader(value = "X-API-TOKEN", required = false) String tokenHeader,
+            @RequestParam(value = "token", required = false) String tokenParam,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        String token = tokenHeader != null ? tokenHeader : tokenParam;
+        if (checkToken(token)) {
+            return aggregator.aggregate()
+                    .map(api -> serve(serialize(api), MediaType.APPLICATION_JSON, acceptEncoding, ifNoneMatch));
+        }
+
+        return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(DefaultDataBufferFactory.sharedInstance.wrap(UNAUTHORIZED)));
+    }
+
+    @GetMapping("/api/v1/docs/status")
+    public ResponseEntity<Collection<SpecStatus>> getStatus(
             @RequestHeader(value = "X-API-TOKEN", required = false) String tokenHeader,
             @RequestParam(value = "token", required = false) String tokenParam) {
 
         String token = tokenHeader != null ? tokenHeader : tokenParam;
         if (checkToken(token)) {
-            return aggregator.aggregate().map(api -> ResponseEntity.ok(Json.pretty(api)));
+            return ResponseEntity.ok(aggregator.getStatuses());
         }
 
-        return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Unauthorized"));
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
     }
 
     @GetMapping("/api/v1/docs-ui")
-    public ResponseEntity<Resource> swaggerUi(
+    public ResponseEntity<DataBuffer> swaggerUi(
             @RequestHeader(value = "X-API-TOKEN", required = false) String tokenHeader,
-            @RequestParam(value = "token", required = false) String tokenParam) {
+            @RequestParam(value = "token", required = false) String tokenParam,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 
         String token = tokenHeader != null ? tokenHeader : tokenParam;
         if (checkToken(token)) {
-            Resource resource = new ClassPathResource("swagger-ui.html");
-            return ResponseEntity.ok()
-                    .contentType(MediaType.TEXT_HTML)
-                    .body(resource);
+            return serve(swaggerUiPage, MediaType.TEXT_HTML, acceptEncoding, ifNoneMatch);
         }
 
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
     }
+
+    private EncodedContent serialize(OpenAPI api) {
+        // the aggregator hands out the same instance until the merged document changes
+        SerializedSpec current = serialized;
+        if (current != null && current.api() == api) {
+            return current.content();
+        }
+
+        EncodedContent content = EncodedContent.of(Json.pretty(api).getBytes(StandardCharsets.UTF_8));
+        serialized = new SerializedSpec(api, content);
+        return content;
+    }
+
+    private ResponseEntity<DataBuffer> serve(EncodedContent content, MediaType mediaType,
+                                             String acceptEncoding, String ifNoneMatch) {
+        EncodedContent.Variant variant = content.select(acceptEncoding);
+
+        if (variant.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(variant.etag())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(mediaType)
+                .contentLength(variant.bytes().length)
+                .eTag(variant.etag())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (variant.encoding() != null) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, variant.encoding());
+        }
+
+        // wraps the prepared bytes, nothing is copied per request
+        return builder.body(DefaultDataBufferFactory.sharedInstance.wrap(variant.bytes()));
+    }
+
+    private static byte[] readResource(String path) {
+        try (InputStream in = new ClassPathResource(path).getInputStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record SerializedSpec(OpenAPI api, EncodedContent content) {
+    }
 }
@@ -21,6 +21,14 @@ public class OpenApiProperties {
 
     private String token;
 
+    // largest spec accepted from a single service
+    private int maxSpecBytes = 10 * 1024 * 1024;
+
+    // fetching and parsing one spec, slower services are left out of (or stale in) the document
+    private long fetchTimeoutMs = 5000;
+
+    private int parserThreads = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+
     @Data
     public static class ServerConfig {
 
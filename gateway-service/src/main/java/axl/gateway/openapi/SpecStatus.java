@@ -0,0 +1,23 @@
+package axl.gateway.openapi;
+
+import java.time.Instant;
+
+/**
+ * Outcome of the last fetch of one service spec.
+ * {@code stale} means the document still carries the previously fetched version of the spec.
+ */
+public record SpecStatus(String service, State state, boolean stale, String message, int bytes, long durationMs,
+                         Instant checkedAt) {
+
+    public enum State {
+        OK,
+        UNCHANGED,
+        TIMEOUT,
+        TOO_LARGE,
+        FAILED
+    }
+
+    public boolean healthy() {
+        return state == State.OK || state == State.UNCHANGED;
+    }
+}
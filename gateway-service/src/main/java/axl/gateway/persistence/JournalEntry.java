@@ -0,0 +1,17 @@
+package axl.gateway.persistence;
+
+import axl.gateway.service.ServiceDefinition;
+
+public record JournalEntry(Op op, ServiceDefinition service) {
+
+    static final JournalEntry COMPACT = new JournalEntry(Op.COMPACT, null);
+
+    static final JournalEntry STOP = new JournalEntry(Op.STOP, null);
+
+    public enum Op {
+        REGISTER,
+        REMOVE,
+        COMPACT,
+        STOP
+    }
+}
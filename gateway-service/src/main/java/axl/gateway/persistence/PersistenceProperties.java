@@ -0,0 +1,23 @@
+package axl.gateway.persistence;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "gateway.persistence")
+public class PersistenceProperties {
+
+    private boolean enabled = false;
+
+    private String directory = "data";
+
+    private long flushIntervalMs = 100;
+
+    private long snapshotIntervalMs = 60000;
+
+    private int maxBatch = 1024;
+
+    private boolean fsync = false;
+}
@@ -0,0 +1,219 @@
+package axl.gateway.persistence;
+
+import axl.gateway.service.RegistryListener;
+import axl.gateway.service.ServiceDefinition;
+import axl.gateway.service.ServiceInstance;
+import axl.gateway.service.ServiceRegistry;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only journal of registry changes plus periodic compacted snapshots.
+ * All file I/O happens on a single writer thread, the registry only enqueues entries.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "gateway.persistence", name = "enabled", havingValue = "true")
+public class RegistryJournal implements RegistryListener {
+
+    private static final String SNAPSHOT_FILE = "registry.snapshot.json";
+
+    private static final String JOURNAL_FILE = "registry.journal";
+
+    private final ServiceRegistry registry;
+
+    private final PersistenceProperties props;
+
+    private final ObjectMapper objectMapper;
+
+    private final BlockingQueue<JournalEntry> queue = new LinkedBlockingQueue<>();
+
+    private ObjectWriter writer;
+
+    private Path directory;
+
+    private FileChannel journal;
+
+    private Thread worker;
+
+    @PostConstruct
+    public void start() throws IOException {
+        writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        directory = Path.of(props.getDirectory());
+        Files.createDirectories(directory);
+
+        replay();
+
+        journal = FileChannel.open(directory.resolve(JOURNAL_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        registry.addListener(this);
+
+        worker = Thread.ofPlatform().name("registry-journal").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        // not an interrupt: it would close the channel if it hit a write
+        queue.offer(JournalEntry.STOP);
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+        journal.close();
+    }
+
+    @Override
+    public void onRegister(ServiceInstance instance) {
+        queue.offer(new JournalEntry(JournalEntry.Op.REGISTER, instance.getDefinition()));
+    }
+
+    @Override
+    public void onRemove(ServiceInstance instance) {
+        queue.offer(new JournalEntry(JournalEntry.Op.REMOVE, instance.getDefinition()));
+    }
+
+    @Scheduled(fixedDelayString = "${gateway.persistence.snapshot-interval-ms:60000}")
+    public void compact() {
+        queue.offer(JournalEntry.COMPACT);
+    }
+
+    private void run() {
+        List<JournalEntry> batch = new ArrayList<>();
+        boolean stopping = false;
+
+        // entries queued up to and after the stop are still flushed
+        while (!stopping || !queue.isEmpty()) {
+            try {
+                JournalEntry first = queue.poll(props.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                batch.add(first);
+                queue.drainTo(batch, props.getMaxBatch());
+                stopping |= batch.remove(JournalEntry.STOP);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.error("Failed to write registry journal: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<JournalEntry> batch) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        for (JournalEntry entry : batch) {
+            if (entry.op() == JournalEntry.Op.COMPACT) {
+                flush(out);
+                snapshot();
+                continue;
+            }
+            out.write(writer.writeValueAsBytes(entry));
+            out.write('\n');
+        }
+        flush(out);
+    }
+
+    private void flush(ByteArrayOutputStream out) throws IOException {
+        if (out.size() == 0) return;
+
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        while (buffer.hasRemaining()) {
+            journal.write(buffer);
+        }
+        if (props.isFsync()) {
+            journal.force(false);
+        }
+        out.reset();
+    }
+
+    private void snapshot() throws IOException {
+        // entries still queued are re-applied on top of this snapshot, which is harmless:
+        // every entry carries the full state of its instance
+        List<ServiceDefinition> services = registry.getDefinitions();
+
+        Path tmp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        Files.write(tmp, writer.writeValueAsBytes(services));
+        if (props.isFsync()) {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+        }
+        Files.move(tmp, directory.resolve(SNAPSHOT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        journal.truncate(0);
+        log.debug("Registry snapshot written ({} instances)", services.size());
+    }
+
+    private void replay() throws IOException {
+        Map<String, ServiceDefinition> state = new LinkedHashMap<>();
+
+        Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshotFile)) {
+            List<ServiceDefinition> services = objectMapper.readValue(snapshotFile.toFile(),
+                    new TypeReference<List<ServiceDefinition>>() {
+                    });
+            services.forEach(service -> state.put(keyOf(service), service));
+        }
+
+        Path journalFile = directory.resolve(JOURNAL_FILE);
+        if (Files.exists(journalFile)) {
+            for (String line : Files.readAllLines(journalFile, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) continue;
+
+                JournalEntry entry;
+                try {
+                    entry = objectMapper.readValue(line, JournalEntry.class);
+                } catch (IOException e) {
+                    // the tail may be cut short by a crash mid-write
+                    log.warn("Skipping unreadable registry journal entry: {}", e.getMessage());
+                    continue;
+                }
+
+                switch (entry.op()) {
+                    case REGISTER -> state.put(keyOf(entry.service()), entry.service());
+                    case REMOVE -> state.remove(keyOf(entry.service()));
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        if (!state.isEmpty()) {
+            registry.restore(state.values());
+            log.info("Restored {} service instances from {}", state.size(), directory);
+        }
+    }
+
+    private static String keyOf(ServiceDefinition service) {
+        return service.getName() + "|" + ServiceRegistry.instanceIdOf(service);
+    }
+}
@@ -0,0 +1,87 @@
+package axl.gateway.ratelimit;
+
+import axl.gateway.balancer.LoadBalancerFilter;
+import axl.gateway.service.RateLimitPolicy;
+import axl.gateway.service.ServiceDefinition;
+import axl.gateway.service.ServiceRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+    private final RateLimiter limiter;
+
+    private final RateLimitProperties props;
+
+    private final ServiceRegistry registry;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+
+        RateLimitPolicy policy = policyOf(route);
+        if (policy == null || policy.getReplenishRate() <= 0) {
+            return chain.filter(exchange);
+        }
+
+        long wait = limiter.acquire(route.getId() + '\n' + clientOf(exchange.getRequest()), policy);
+        if (wait == 0) {
+            return chain.filter(exchange);
+        }
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER,
+                String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + TimeUnit.SECONDS.toNanos(1) - 1))));
+        return response.setComplete();
+    }
+
+    @Override
+    public int getOrder() {
+        // after JwtUserHeaderFilter has resolved the user, before anything is served
+        return -95;
+    }
+
+    private RateLimitPolicy policyOf(Route route) {
+        RateLimitPolicy policy = props.getRoutes().get(route.getId());
+        if (policy != null) {
+            return policy;
+        }
+
+        if (route.getMetadata().get(LoadBalancerFilter.SERVICE_METADATA) instanceof String service) {
+            ServiceDefinition definition = registry.get(service);
+            return definition != null ? definition.getRateLimit() : null;
+        }
+        return null;
+    }
+
+    private static String clientOf(ServerHttpRequest request) {
+        String userId = request.getHeaders().getFirst("X-User-Id");
+        if (userId != null) {
+            return "user:" + userId;
+        }
+
+        InetSocketAddress address = request.getRemoteAddress();
+        return address != null && address.getAddress() != null ? "ip:" + address.getAddress().getHostAddress() : "ip:unknown";
+    }
+}
@@ -0,0 +1,21 @@
+package axl.gateway.ratelimit;
+
+import axl.gateway.service.RateLimitPolicy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+
+    // limits by route id, they take precedence over the limit declared by the service
+    private Map<String, RateLimitPolicy> routes = Map.of();
+
+    private long sweepIntervalMs = 10000;
+
+    private int maxBuckets = 1_000_000;
+}
@@ -0,0 +1,80 @@
+package axl.gateway.ratelimit;
+
+import axl.gateway.service.RateLimitPolicy;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RateLimiter {
+
+    private final RateLimitProperties props;
+
+    private static final int OVERFLOW_SHARDS = 64;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    // shared by the clients that arrive while the map is full, until the scheduled sweep makes room.
+    // Spread by key, so one busy client only throttles the few it shares a bucket with, on any route
+    private final TokenBucket[] overflow = Stream.generate(TokenBucket::new)
+            .limit(OVERFLOW_SHARDS)
+            .toArray(TokenBucket[]::new);
+
+    @Getter
+    private final LongAdder allowed = new LongAdder();
+
+    @Getter
+    private final LongAdder rejected = new LongAdder();
+
+    @Getter
+    private final LongAdder overflowed = new LongAdder();
+
+    /**
+     * @return 0 when the request may pass, otherwise nanos until it would
+     */
+    public long acquire(String key, RateLimitPolicy policy) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= props.getMaxBuckets()) {
+                // never scan on the request path, and never grow past the cap
+                overflowed.increment();
+                bucket = overflow[Math.floorMod(key.hashCode(), OVERFLOW_SHARDS)];
+            } else {
+                bucket = buckets.computeIfAbsent(key, k -> new TokenBucket());
+            }
+        }
+
+        long interval = TimeUnit.SECONDS.toNanos(1) / Math.max(policy.getReplenishRate(), 1);
+        long tolerance = interval * (Math.max(policy.getBurstCapacity(), 1) - 1);
+
+        long wait = bucket.acquire(System.nanoTime(), interval, tolerance);
+        if (wait == 0) {
+            allowed.increment();
+        } else {
+            rejected.increment();
+        }
+        return wait;
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    @Scheduled(fixedDelayString = "${gateway.rate-limit.sweep-interval-ms:10000}")
+    public void sweep() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.entrySet().removeIf(entry -> entry.getValue().isIdle(now));
+        log.debug("Rate limiter sweep: {} -> {} buckets", before, buckets.size());
+    }
+}
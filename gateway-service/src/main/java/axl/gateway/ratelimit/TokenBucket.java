@@ -0,0 +1,34 @@
+package axl.gateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket in its GCRA form: the whole state is one "theoretical arrival time",
+ * so a permit is a single CAS and no lock is ever taken.
+ */
+public class TokenBucket {
+
+    private final AtomicLong arrival = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * @return 0 when a permit was taken, otherwise nanos until the next one becomes available
+     */
+    public long acquire(long now, long intervalNanos, long toleranceNanos) {
+        while (true) {
+            long tat = arrival.get();
+            long start = Math.max(tat, now);
+            long wait = start - now - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(tat, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    public boolean isIdle(long now) {
+        // fully replenished, indistinguishable from a fresh bucket
+        return arrival.get() <= now;
+    }
+}
@@ -0,0 +1,37 @@
+package axl.gateway.replication;
+
+import axl.gateway.service.ServiceDefinition;
+
+/**
+ * Versioned change of one registry entry. Entries are compared last-writer-wins
+ * by {@code stamp}, ties are broken by the origin node id.
+ */
+public record Delta(Op op, String name, String instanceId, long stamp, String origin, ServiceDefinition service) {
+
+    public enum Op {
+        REGISTER,
+        TOUCH,
+        REMOVE
+    }
+
+    public String key() {
+        return keyOf(name, instanceId);
+    }
+
+    public boolean newerThan(Delta other) {
+        if (stamp != other.stamp) return stamp > other.stamp;
+        return origin.compareTo(other.origin) > 0;
+    }
+
+    public Delta restamped(long stamp, String origin) {
+        return new Delta(op, name, instanceId, stamp, origin, service);
+    }
+
+    public Delta withoutService() {
+        return new Delta(op, name, instanceId, stamp, origin, null);
+    }
+
+    public static String keyOf(String name, String instanceId) {
+        return name + "|" + instanceId;
+    }
+}
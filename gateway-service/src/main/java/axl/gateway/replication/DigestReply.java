@@ -0,0 +1,10 @@
+package axl.gateway.replication;
+
+import java.util.List;
+
+/**
+ * Answer to an anti-entropy digest: entries the peer holds in a newer version,
+ * and keys for which the sender is ahead and should push its entries.
+ */
+public record DigestReply(List<Delta> newer, List<String> wanted) {
+}
@@ -0,0 +1,298 @@
+package axl.gateway.replication;
+
+import axl.gateway.openapi.OpenApiAggregator;
+import axl.gateway.service.Heartbeat;
+import axl.gateway.service.RegistryListener;
+import axl.gateway.service.ServiceEntry;
+import axl.gateway.service.ServiceInstance;
+import axl.gateway.service.ServiceRegistry;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Replicates registry state between peer gateways.
+ * Local changes are batched and pushed as gzip-compressed deltas, and a periodic digest
+ * exchange repairs anything a lost batch or a restarted peer has missed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "gateway.replication", name = "enabled", havingValue = "true")
+public class RegistryReplicator implements RegistryListener {
+
+    public static final String DELTAS_PATH = "/internal/replication/deltas";
+
+    public static final String DIGEST_PATH = "/internal/replication/digest";
+
+    private final ServiceRegistry registry;
+
+    private final ReplicationProperties props;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationEventPublisher publisher;
+
+    private final OpenApiAggregator openApiAggregator;
+
+    private final WebClient webClient = WebClient.create();
+
+    private final Map<String, Delta> entries = new ConcurrentHashMap<>();
+
+    private final Map<String, Delta> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    // set while remote deltas are applied, so that they are not replicated back
+    private final ThreadLocal<Boolean> applying = ThreadLocal.withInitial(() -> false);
+
+    private ObjectWriter writer;
+
+    @PostConstruct
+    public void init() {
+        writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+
+        // whatever was restored locally loses against any peer's version
+        for (ServiceEntry entry : registry.getServices().values()) {
+            for (ServiceInstance instance : entry.instances()) {
+                Delta delta = delta(Delta.Op.REGISTER, instance, 0);
+                entries.put(delta.key(), delta);
+            }
+        }
+
+        registry.addListener(this);
+    }
+
+    @Override
+    public void onRegister(ServiceInstance instance) {
+        if (applying.get()) return;
+
+        Delta delta = delta(Delta.Op.REGISTER, instance, tick());
+        entries.put(delta.key(), delta);
+        pending.put(delta.key(), delta);
+    }
+
+    @Override
+    public void onRemove(ServiceInstance instance) {
+        if (applying.get()) return;
+
+        if (instance.getDeadline() <= System.currentTimeMillis()) {
+            // every node expires instances on its own: a node that merely missed some touches must not
+            // remove a live instance everywhere. The tombstone keeps the stamp of the last change seen,
+            // so any later touch or registration from the owner wins over it
+            String key = Delta.keyOf(instance.getDefinition().getName(), instance.getId());
+            entries.computeIfPresent(key, (k, current) -> new Delta(Delta.Op.REMOVE, current.name(),
+                    current.instanceId(), current.stamp(), current.origin(), current.service()));
+            return;
+        }
+
+        Delta delta = delta(Delta.Op.REMOVE, instance, tick());
+        entries.put(delta.key(), delta);
+        pending.put(delta.key(), delta);
+    }
+
+    @Override
+    public void onHeartbeat(ServiceInstance instance) {
+        if (applying.get()) return;
+
+        long stamp = tick();
+        String key = Delta.keyOf(instance.getDefinition().getName(), instance.getId());
+        entries.computeIfPresent(key, (k, current) ->
+                current.op() == Delta.Op.REGISTER ? current.restamped(stamp, props.getNodeId()) : current);
+
+        // a pending full registration already carries the instance, it only needs the newer stamp
+        Delta touch = delta(Delta.Op.TOUCH, instance, stamp).withoutService();
+        pending.merge(key, touch, (current, next) ->
+                current.op() == Delta.Op.REGISTER ? current.restamped(stamp, props.getNodeId()) : next);
+    }
+
+    @Scheduled(fixedDelayString = "${gateway.replication.batch-interval-ms:200}")
+    public void flush() {
+        if (pending.isEmpty() || props.getPeers().isEmpty()) return;
+
+        List<Delta> batch = new ArrayList<>(pending.size());
+        for (String key : pending.keySet()) {
+            Delta delta = pending.remove(key);
+            if (delta != null) {
+                batch.add(delta);
+            }
+        }
+        if (batch.isEmpty()) return;
+
+        byte[] body = encode(batch);
+        props.getPeers().forEach(peer -> push(peer, body));
+    }
+
+    @Scheduled(fixedDelayString = "${gateway.replication.anti-entropy-interval-ms:10000}")
+    public void antiEntropy() {
+        long horizon = System.currentTimeMillis() - props.getTombstoneTtlMs();
+        entries.values().removeIf(delta -> delta.op() == Delta.Op.REMOVE && delta.stamp() < horizon);
+
+        Map<String, Long> digest = digest();
+        for (String peer : props.getPeers()) {
+            webClient.post()
+                    .uri(peer + DIGEST_PATH)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(digest)
+                    .retrieve()
+                    .bodyToMono(DigestReply.class)
+                    .timeout(Duration.ofMillis(props.getTimeoutMs()))
+                    .subscribe(reply -> {
+                        apply(reply.newer());
+
+                        List<Delta> wanted = reply.wanted().stream()
+                                .map(entries::get)
+                                .filter(Objects::nonNull)
+                                .toList();
+                        if (!wanted.isEmpty()) {
+                            push(peer, encode(wanted));
+                        }
+                    }, e -> log.debug("Anti-entropy with {} failed: {}", peer, e.getMessage()));
+        }
+    }
+
+    public synchronized int apply(List<Delta> deltas) {
+        int applied = 0;
+        boolean changed = false;
+
+        applying.set(true);
+        try {
+            for (Delta delta : deltas) {
+                clock.accumulateAndGet(delta.stamp(), Math::max);
+
+                Delta local = entries.get(delta.key());
+                if (local != null && !delta.newerThan(local)) continue;
+
+                switch (delta.op()) {
+                    case REGISTER -> {
+                        entries.put(delta.key(), delta);
+                        changed |= registry.register(delta.service());
+                    }
+                    case TOUCH -> {
+                        // a touch carries no definition, for an unknown entry the digest exchange brings the full version
+                        if (local == null || local.service() == null) continue;
+                        if (local.op() == Delta.Op.REMOVE) {
+                            // the instance outlived the removal, e.g. a local expiry after missed touches
+                            entries.put(delta.key(), new Delta(Delta.Op.REGISTER, delta.name(), delta.instanceId(),
+                                    delta.stamp(), delta.origin(), local.service()));
+                            changed |= registry.register(local.service());
+                        } else {
+                            if (registry.heartbeat(delta.name(), delta.instanceId(), null) != Heartbeat.Status.OK) continue;
+                            entries.put(delta.key(), local.restamped(delta.stamp(), delta.origin()));
+                        }
+                    }
+                    case REMOVE -> {
+                        entries.put(delta.key(), delta);
+                        changed |= registry.remove(delta.name(), delta.instanceId());
+                    }
+                }
+                applied++;
+            }
+        } finally {
+            applying.set(false);
+        }
+
+        if (changed) {
+            publisher.publishEvent(new RefreshRoutesEvent(this));
+            openApiAggregator.invalidate();
+        }
+        return applied;
+    }
+
+    public DigestReply reconcile(Map<String, Long> remote) {
+        List<Delta> newer = new ArrayList<>();
+        for (Delta delta : entries.values()) {
+            Long stamp = remote.get(delta.key());
+            if (stamp == null || delta.stamp() > stamp) {
+                newer.add(delta);
+            }
+        }
+
+        List<String> wanted = new ArrayList<>();
+        remote.forEach((key, stamp) -> {
+            Delta local = entries.get(key);
+            if (local == null || stamp > local.stamp()) {
+                wanted.add(key);
+            }
+        });
+
+        return new DigestReply(newer, wanted);
+    }
+
+    public List<Delta> decode(byte[] body, boolean gzip) {
+        try (InputStream in = gzip ? new GZIPInputStream(new ByteArrayInputStream(body)) : new ByteArrayInputStream(body)) {
+            return objectMapper.readValue(in, new TypeReference<List<Delta>>() {
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Map<String, Long> digest() {
+        Map<String, Long> digest = new HashMap<>(entries.size() * 2);
+        entries.forEach((key, delta) -> digest.put(key, delta.stamp()));
+        return digest;
+    }
+
+    private void push(String peer, byte[] body) {
+        webClient.post()
+                .uri(peer + DELTAS_PATH)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .bodyValue(body)
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(Duration.ofMillis(props.getTimeoutMs()))
+                .subscribe(response -> {
+                }, e -> log.debug("Replication to {} failed: {}", peer, e.getMessage()));
+    }
+
+    private byte[] encode(List<Delta> deltas) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            writer.writeValue(out, deltas);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private long tick() {
+        long now = System.currentTimeMillis();
+        return clock.updateAndGet(last -> Math.max(now, last + 1));
+    }
+
+    private Delta delta(Delta.Op op, ServiceInstance instance, long stamp) {
+        return new Delta(op, instance.getDefinition().getName(), instance.getId(), stamp,
+                props.getNodeId(), instance.getDefinition());
+    }
+}
@@ -0,0 +1,36 @@
+package axl.gateway.replication;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "gateway.replication", name = "enabled", havingValue = "true")
+public class ReplicationController {
+
+    private final RegistryReplicator replicator;
+
+    @PostMapping(RegistryReplicator.DELTAS_PATH)
+    public Map<?, ?> deltas(@RequestHeader(value = HttpHeaders.CONTENT_ENCODING, required = false) String encoding,
+                            @RequestBody byte[] body) {
+        List<Delta> deltas = replicator.decode(body, "gzip".equalsIgnoreCase(encoding));
+        int applied = replicator.apply(deltas);
+        log.debug("Applied {} of {} replicated deltas", applied, deltas.size());
+        return Map.of("status", "200", "message", "Applied " + applied + " deltas");
+    }
+
+    @PostMapping(RegistryReplicator.DIGEST_PATH)
+    public DigestReply digest(@RequestBody Map<String, Long> digest) {
+        return replicator.reconcile(digest);
+    }
+}
@@ -0,0 +1,28 @@
+package axl.gateway.replication;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "gateway.replication")
+public class ReplicationProperties {
+
+    private boolean enabled = false;
+
+    private String nodeId = UUID.randomUUID().toString();
+
+    private List<String> peers = List.of();
+
+    private long batchIntervalMs = 200;
+
+    private long antiEntropyIntervalMs = 10000;
+
+    private long tombstoneTtlMs = 600000;
+
+    private long timeoutMs = 2000;
+}
@@ -0,0 +1,126 @@
+package axl.gateway.retry;
+
+import lombok.Getter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import reactor.core.publisher.Flux;
+import reactor.netty.Connection;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR;
+
+/**
+ * One upstream call of a request. The routing filters run against an isolated view of the exchange:
+ * their own attributes and response status and headers, so that concurrent attempts do not see each other.
+ * Only the attempt that wins is copied into the real exchange, whose response is then written as usual.
+ */
+final class Attempt {
+
+    @Getter
+    private final boolean hedge;
+
+    @Getter
+    private final ServerWebExchange exchange;
+
+    private final Map<String, Object> attributes;
+
+    private final AttemptResponse response;
+
+    Attempt(ServerWebExchange original, boolean hedge) {
+        this.hedge = hedge;
+        this.attributes = new ConcurrentHashMap<>(original.getAttributes());
+        this.response = new AttemptResponse(original.getResponse());
+
+        // only bodiless requests are attempted, and the inbound body may only be subscribed once
+        ServerHttpRequest request = new ServerHttpRequestDecorator(original.getRequest()) {
+
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.empty();
+            }
+        };
+
+        this.exchange = new ServerWebExchangeDecorator(original) {
+
+            @Override
+            public ServerHttpRequest getRequest() {
+                return request;
+            }
+
+            @Override
+            public ServerHttpResponse getResponse() {
+                return response;
+            }
+
+            @Override
+            public Map<String, Object> getAttributes() {
+                return attributes;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> T getAttribute(String name) {
+                return (T) attributes.get(name);
+            }
+        };
+    }
+
+    HttpStatusCode getStatusCode() {
+        return response.getStatusCode();
+    }
+
+    void commitTo(ServerWebExchange target) {
+        ServerHttpResponse out = target.getResponse();
+        out.setStatusCode(response.status);
+        out.getHeaders().clear();
+        out.getHeaders().putAll(response.headers);
+        target.getAttributes().putAll(attributes);
+    }
+
+    /**
+     * Closes the upstream connection of an attempt that lost the race after its response had arrived.
+     */
+    void discard() {
+        if (attributes.remove(CLIENT_RESPONSE_CONN_ATTR) instanceof Connection connection) {
+            connection.dispose();
+        }
+    }
+
+    private static final class AttemptResponse extends ServerHttpResponseDecorator {
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private volatile HttpStatusCode status;
+
+        private AttemptResponse(ServerHttpResponse delegate) {
+            super(delegate);
+            headers.putAll(delegate.getHeaders());
+            status = delegate.getStatusCode();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public boolean setStatusCode(HttpStatusCode status) {
+            this.status = status;
+            return true;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return status;
+        }
+    }
+}
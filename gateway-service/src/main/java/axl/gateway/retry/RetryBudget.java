@@ -0,0 +1,104 @@
+package axl.gateway.retry;
+
+import axl.gateway.ratelimit.TokenBucket;
+import axl.gateway.service.RegistryListener;
+import axl.gateway.service.ServiceInstance;
+import axl.gateway.service.ServiceRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Retry budget per service: every successful request deposits {@code budgetRatio} of a token,
+ * every retry or hedge withdraws a whole one. Extra load is thus bounded by a fraction of the load
+ * that succeeds, and when an upstream fails outright the budget runs dry instead of multiplying the traffic.
+ * The ratio holds for every gateway node against its own traffic, so it holds for the cluster as a whole,
+ * however many nodes there are, without any coordination.
+ */
+@Component
+@RequiredArgsConstructor
+public class RetryBudget implements RegistryListener {
+
+    // balances are kept in thousandths of a token, so that deposits stay integral
+    private static final long TOKEN = 1000;
+
+    private final ServiceRegistry registry;
+
+    private final RetryProperties props;
+
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+
+    @Getter
+    private final LongAdder exhausted = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        registry.addListener(this);
+    }
+
+    public void deposit(String service) {
+        long amount = (long) (props.getBudgetRatio() * TOKEN);
+        long max = props.getMaxBudgetTokens() * TOKEN;
+        accountOf(service).balance.accumulateAndGet(amount, (balance, add) -> Math.min(balance + add, max));
+    }
+
+    public boolean tryWithdraw(String service) {
+        Account account = accountOf(service);
+        while (true) {
+            long balance = account.balance.get();
+            if (balance < TOKEN) break;
+            if (account.balance.compareAndSet(balance, balance - TOKEN)) return true;
+        }
+
+        int minPerSecond = props.getMinRetriesPerSecond();
+        if (minPerSecond > 0
+                && account.floor.acquire(System.nanoTime(), TimeUnit.SECONDS.toNanos(1) / minPerSecond, 0) == 0) {
+            return true;
+        }
+
+        exhausted.increment();
+        return false;
+    }
+
+    /**
+     * @return tokens currently available per service
+     */
+    public Map<String, Double> getBalances() {
+        Map<String, Double> balances = new LinkedHashMap<>();
+        accounts.forEach((service, account) -> balances.put(service, account.balance.get() / (double) TOKEN));
+        return balances;
+    }
+
+    @Override
+    public void onRegister(ServiceInstance instance) {
+        // accounts are opened by the first request
+    }
+
+    @Override
+    public void onRemove(ServiceInstance instance) {
+        String service = instance.getDefinition().getName();
+        if (registry.getInstances(service).isEmpty()) {
+            accounts.remove(service);
+        }
+    }
+
+    private Account accountOf(String service) {
+        Account account = accounts.get(service);
+        return account != null ? account : accounts.computeIfAbsent(service, k -> new Account());
+    }
+
+    private static final class Account {
+
+        private final AtomicLong balance = new AtomicLong();
+
+        private final TokenBucket floor = new TokenBucket();
+    }
+}
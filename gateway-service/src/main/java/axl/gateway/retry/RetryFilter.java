@@ -0,0 +1,208 @@
+package axl.gateway.retry;
+
+import axl.gateway.balancer.LoadBalancerFilter;
+import axl.gateway.locator.DynamicRouteLocator;
+import axl.gateway.metrics.GatewayMetrics;
+import axl.gateway.metrics.RouteMetrics;
+import axl.gateway.service.RetryPolicy;
+import axl.gateway.service.ServiceDefinition;
+import axl.gateway.service.ServiceRegistry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Retries and hedges idempotent, bodiless requests of routes whose service declared a {@link RetryPolicy}.
+ * A connection failure is retried on another instance; a request still without a response once the
+ * route latency percentile of the policy has passed gets a second one racing it on another instance,
+ * the first response wins and the other call is cancelled. Both draw from the {@link RetryBudget}.
+ */
+@Component
+@RequiredArgsConstructor
+public class RetryFilter implements GlobalFilter, Ordered {
+
+    private static final Set<HttpMethod> IDEMPOTENT = Set.of(HttpMethod.GET, HttpMethod.HEAD, HttpMethod.OPTIONS);
+
+    // fewer samples make for a meaningless percentile
+    private static final long MIN_HEDGE_SAMPLES = 100;
+
+    private static final long HEDGE_DELAY_REFRESH_MS = 1000;
+
+    private final ServiceRegistry registry;
+
+    private final GatewayMetrics metrics;
+
+    private final RetryBudget budget;
+
+    private final Map<String, HedgeDelay> hedgeDelays = new ConcurrentHashMap<>();
+
+    @Getter
+    private final LongAdder retries = new LongAdder();
+
+    @Getter
+    private final LongAdder hedges = new LongAdder();
+
+    @Getter
+    private final LongAdder hedgeWins = new LongAdder();
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (route == null || !isRetryable(exchange.getRequest())
+                || !(route.getMetadata().get(LoadBalancerFilter.SERVICE_METADATA) instanceof String service)) {
+            return chain.filter(exchange);
+        }
+        RetryPolicy policy = policyOf(registry.get(service), route.getMetadata().get(DynamicRouteLocator.PATH_METADATA));
+        if (policy == null) {
+            return chain.filter(exchange);
+        }
+
+        exchange.getAttributes().put(LoadBalancerFilter.TRIED_INSTANCES_ATTR, ConcurrentHashMap.newKeySet());
+        List<Attempt> attempts = new CopyOnWriteArrayList<>();
+
+        Mono<Attempt> winner = send(exchange, chain, service, policy, policy.getRetries(), false, attempts);
+        long hedgeDelayMicros = hedgeDelayMicros(route, policy);
+        if (hedgeDelayMicros > 0) {
+            // a hedge only races a primary that is still outstanding: once the primary has failed,
+            // its error goes to the client at once instead of waiting for the timer and being sent again
+            Sinks.Empty<Void> primaryDone = Sinks.empty();
+            winner = winner.doFinally(signal -> primaryDone.tryEmitEmpty());
+
+            Mono<Attempt> hedge = Mono.delay(Duration.ofNanos(hedgeDelayMicros * 1000))
+                    .takeUntilOther(primaryDone.asMono())
+                    .flatMap(tick -> {
+                        if (!budget.tryWithdraw(service)) return Mono.empty();
+                        hedges.increment();
+                        return send(exchange, chain, service, policy, 0, true, attempts);
+                    });
+            winner = Mono.firstWithValue(winner, hedge)
+                    .onErrorMap(NoSuchElementException.class, RetryFilter::firstCause);
+        }
+
+        return winner.flatMap(attempt -> {
+            attempts.forEach(other -> {
+                if (other != attempt) other.discard();
+            });
+            if (attempt.isHedge()) {
+                hedgeWins.increment();
+            }
+
+            HttpStatusCode status = attempt.getStatusCode();
+            if (status != null && !status.is5xxServerError()) {
+                budget.deposit(service);
+            }
+            attempt.commitTo(exchange);
+            return Mono.empty();
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        // after RouteToRequestUrlFilter, before LoadBalancerFilter, so every attempt picks its own instance
+        return 10100;
+    }
+
+    private Mono<Attempt> send(ServerWebExchange exchange, GatewayFilterChain chain, String service, RetryPolicy policy,
+                               int retriesLeft, boolean hedge, List<Attempt> attempts) {
+        return Mono.defer(() -> {
+                    Attempt attempt = new Attempt(exchange, hedge);
+                    attempts.add(attempt);
+                    return chain.filter(attempt.getExchange())
+                            .then(Mono.just(attempt))
+                            .doOnCancel(attempt::discard);
+                })
+                .onErrorResume(e -> {
+                    if (retriesLeft <= 0 || !isConnectFailure(e) || !budget.tryWithdraw(service)) {
+                        return Mono.error(e);
+                    }
+
+                    retries.increment();
+                    Mono<Attempt> next = send(exchange, chain, service, policy, retriesLeft - 1, hedge, attempts);
+                    return policy.getBackoffMs() > 0 ? Mono.delay(Duration.ofMillis(policy.getBackoffMs())).then(next) : next;
+                });
+    }
+
+    private long hedgeDelayMicros(Route route, RetryPolicy policy) {
+        double percentile = policy.getHedgePercentile();
+        if (percentile <= 0) return 0;
+
+        // the percentile walks the whole histogram, it is refreshed once in a while rather than per request
+        long now = System.currentTimeMillis();
+        HedgeDelay delay = hedgeDelays.get(route.getId());
+        if (delay == null || delay.percentile() != percentile || delay.computedAt() + HEDGE_DELAY_REFRESH_MS < now) {
+            RouteMetrics routeMetrics = metrics.get(route.getId());
+            long micros = routeMetrics != null && routeMetrics.getLatency().getCount() >= MIN_HEDGE_SAMPLES
+                    ? routeMetrics.getLatency().valueAtPercentile(percentile) : 0;
+            delay = new HedgeDelay(now, percentile, micros);
+            hedgeDelays.put(route.getId(), delay);
+        }
+
+        if (delay.micros() == 0) return 0;
+        return Math.max(delay.micros(), policy.getHedgeMinDelayMs() * 1000);
+    }
+
+    private static RetryPolicy policyOf(ServiceDefinition service, Object path) {
+        if (service == null || service.getRetry() == null) return null;
+
+        for (RetryPolicy policy : service.getRetry()) {
+            if (policy.getRoute() == null || policy.getRoute().equals(path)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isRetryable(ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        return IDEMPOTENT.contains(request.getMethod())
+                && headers.getContentLength() <= 0
+                && !headers.containsKey(HttpHeaders.TRANSFER_ENCODING);
+    }
+
+    private static boolean isConnectFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            // only failures to connect: the request never reached the upstream
+            if (cause instanceof ConnectException || cause instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Throwable firstCause(NoSuchElementException e) {
+        // every attempt failed, report the error of the first one
+        if (e.getCause() != null) {
+            List<Throwable> causes = Exceptions.unwrapMultiple(e.getCause());
+            if (!causes.isEmpty()) return causes.get(0);
+        }
+        return e.getSuppressed().length > 0 ? e.getSuppressed()[0] : e;
+    }
+
+    private record HedgeDelay(long computedAt, double percentile, long micros) {
+    }
+}
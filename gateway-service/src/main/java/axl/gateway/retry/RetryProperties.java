@@ -0,0 +1,20 @@
+package axl.gateway.retry;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "gateway.retry")
+public class RetryProperties {
+
+    // retries and hedges allowed per successful request of a service
+    private double budgetRatio = 0.2;
+
+    // allowed regardless of the ratio, so that services with little traffic can retry at all
+    private int minRetriesPerSecond = 10;
+
+    // upper bound of the tokens a quiet service can save up
+    private int maxBudgetTokens = 100;
+}
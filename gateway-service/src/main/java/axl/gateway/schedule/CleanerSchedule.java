@@ -1,14 +1,16 @@
 package axl.gateway.schedule;
 
+import axl.gateway.service.ServiceInstance;
 import axl.gateway.service.ServiceRegistry;
 import axl.gateway.openapi.OpenApiAggregator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.time.Instant;
-import java.util.Iterator;
+import java.util.List;
 
 @Slf4j
 @Component
@@ -17,24 +19,18 @@ public class CleanerSchedule {
 
     private final ServiceRegistry registry;
     private final OpenApiAggregator openApiAggregator;
+    private final ApplicationEventPublisher publisher;
 
-    @Scheduled(fixedDelay = 5000)
+    @Scheduled(fixedRateString = "${gateway.expiry.tick-ms:100}")
     public void cleanupExpiredServices() {
-        Instant now = Instant.now();
+        List<ServiceInstance> expired = registry.expire();
+        if (expired.isEmpty()) return;
 
-        Iterator<String> it = registry.getServices().keySet().iterator();
-        while (it.hasNext()) {
-            String name = it.next();
-            var service = registry.get(name);
-
-            if (service != null && service.getLastUpdated() != null) {
-                long age = now.getEpochSecond() - service.getLastUpdated().getEpochSecond();
-                if (age > service.getTtlSeconds()) {
-                    it.remove();
-                    openApiAggregator.setDocumentation(null);
-                    log.warn("Service `{}` expired", name);
-                }
-            }
+        for (ServiceInstance instance : expired) {
+            log.warn("Service `{}` instance `{}` expired", instance.getDefinition().getName(), instance.getId());
         }
+
+        publisher.publishEvent(new RefreshRoutesEvent(this));
+        openApiAggregator.invalidate();
     }
 }
@@ -1,9 +1,11 @@
 package axl.gateway.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
+import lombok.Getter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
@@ -15,24 +17,44 @@ import reactor.core.publisher.Mono;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.util.Date;
 
 @Component
 public class JwtUserHeaderFilter implements GlobalFilter, Ordered {
 
+    // verified user id, for filters that wrap this one and only see the original request
+    public static final String USER_ID_ATTR = JwtUserHeaderFilter.class.getName() + ".userId";
+
     @Value("${jwt.access.name}")
     private String name;
 
     @Value("${jwt.access.secret}")
     private String accessSecret;
 
-    private SecretKey accessKey;
+    @Value("${jwt.cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    @Value("${jwt.cache.max-ttl-ms:300000}")
+    private long cacheMaxTtlMs;
+
+    @Value("${jwt.cache.negative-ttl-ms:5000}")
+    private long cacheNegativeTtlMs;
+
+    private JwtParser parser;
+
+    @Getter
+    private TokenCache cache;
 
     @PostConstruct
     public void init() {
         if (accessSecret == null || accessSecret.isEmpty() || name == null || name.isEmpty())
             return;
 
-        this.accessKey = Keys.hmacShaKeyFor(accessSecret.getBytes(StandardCharsets.UTF_8));
+        SecretKey accessKey = Keys.hmacShaKeyFor(accessSecret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser()
+                .verifyWith(accessKey)
+                .build();
+        this.cache = new TokenCache(cacheMaxSize, cacheMaxTtlMs, cacheNegativeTtlMs);
     }
 
     @Override
@@ -40,7 +62,7 @@ public class JwtUserHeaderFilter implements GlobalFilter, Ordered {
         ServerHttpRequest.Builder requestBuilder = exchange.getRequest().mutate()
                 .headers(httpHeaders -> httpHeaders.remove("X-User-Id"));
 
-        if (accessKey != null) {
+        if (parser != null) {
             String token = null;
 
             if (exchange.getRequest().getCookies().getFirst(name) != null) {
@@ -49,18 +71,10 @@ public class JwtUserHeaderFilter implements GlobalFilter, Ordered {
             }
 
             if (token != null && !token.isEmpty()) {
-                try {
-                    Claims claims = Jwts.parser()
-                            .verifyWith(accessKey)
-                            .build()
-                            .parseSignedClaims(token)
-                            .getPayload();
-
-                    String userId = claims.getSubject();
-                    if (userId != null) {
-                        requestBuilder.header("X-User-Id", userId);
-                    }
-                } catch (Exception ignored) {
+                String userId = resolveSubject(token);
+                if (userId != null) {
+                    requestBuilder.header("X-User-Id", userId);
+                    exchange.getAttributes().put(USER_ID_ATTR, userId);
                 }
             }
         }
@@ -68,6 +82,25 @@ public class JwtUserHeaderFilter implements GlobalFilter, Ordered {
         return chain.filter(exchange.mutate().request(requestBuilder.build()).build());
     }
 
+    private String resolveSubject(String token) {
+        String key = TokenCache.digest(token);
+
+        TokenCache.Entry cached = cache.lookup(key);
+        if (cached != null) {
+            return cached.rejected() ? null : cached.subject();
+        }
+
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            Date expiration = claims.getExpiration();
+            cache.putValid(key, claims.getSubject(), expiration != null ? expiration.getTime() : null);
+            return claims.getSubject();
+        } catch (Exception e) {
+            cache.putInvalid(key);
+            return null;
+        }
+    }
+
     @Override
     public int getOrder() {
         return -100;
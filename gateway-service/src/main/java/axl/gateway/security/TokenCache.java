@@ -0,0 +1,189 @@
+package axl.gateway.security;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of already verified access tokens.
+ * Keys are SHA-256 digests of the raw token, so the cookies themselves are never retained.
+ * Rejected tokens are remembered for a short time to avoid re-verifying junk cookies.
+ */
+public class TokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    // entries looked at per insert into a full cache, so a miss never scans the whole map
+    private static final int EVICTION_SCAN = 16;
+
+    private final Clock valid = new Clock();
+
+    private final Clock invalid = new Clock();
+
+    private final int maxSize;
+
+    private final long maxTtlMillis;
+
+    private final long negativeTtlMillis;
+
+    @Getter
+    private final LongAdder hits = new LongAdder();
+
+    @Getter
+    private final LongAdder misses = new LongAdder();
+
+    @Getter
+    private final LongAdder evictions = new LongAdder();
+
+    public TokenCache(int maxSize, long maxTtlMillis, long negativeTtlMillis) {
+        this.maxSize = maxSize;
+        this.maxTtlMillis = maxTtlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+    }
+
+    public static String digest(String token) {
+        MessageDigest md = SHA_256.get();
+        md.reset();
+        byte[] hash = md.digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+    }
+
+    public Entry lookup(String key) {
+        long now = System.currentTimeMillis();
+
+        Entry entry = valid.get(key, now);
+        if (entry != null) {
+            hits.increment();
+            return entry;
+        }
+
+        if (invalid.get(key, now) != null) {
+            hits.increment();
+            return Entry.REJECTED;
+        }
+
+        misses.increment();
+        return null;
+    }
+
+    public void putValid(String key, String subject, Long expiresAt) {
+        long now = System.currentTimeMillis();
+        long deadline = now + maxTtlMillis;
+        if (expiresAt != null) {
+            deadline = Math.min(deadline, expiresAt);
+        }
+        if (deadline <= now) return;
+
+        valid.put(key, new Entry(subject, deadline), now);
+    }
+
+    public void putInvalid(String key) {
+        long now = System.currentTimeMillis();
+        invalid.put(key, new Entry(null, now + negativeTtlMillis), now);
+    }
+
+    public int size() {
+        return valid.slots.size() + invalid.slots.size();
+    }
+
+    /**
+     * One bounded map with a CLOCK hand: a full map evicts by advancing the hand over a few entries,
+     * dropping expired and not recently used ones and giving used ones a second chance.
+     */
+    private final class Clock {
+
+        private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+
+        private Iterator<Map.Entry<String, Slot>> hand = slots.entrySet().iterator();
+
+        Entry get(String key, long now) {
+            Slot slot = slots.get(key);
+            if (slot == null) return null;
+
+            if (slot.entry.expiresAt() <= now) {
+                slots.remove(key, slot);
+                return null;
+            }
+            if (!slot.referenced) {
+                slot.referenced = true;
+            }
+            return slot.entry;
+        }
+
+        void put(String key, Entry entry, long now) {
+            if (slots.size() >= maxSize) {
+                evict(now);
+            }
+            slots.put(key, new Slot(entry));
+        }
+
+        private synchronized void evict(long now) {
+            for (int scanned = 0; scanned < EVICTION_SCAN && slots.size() >= maxSize; scanned++) {
+                Map.Entry<String, Slot> next = advance();
+                if (next == null) return;
+
+                Slot slot = next.getValue();
+                if (slot.entry.expiresAt() <= now || !slot.referenced) {
+                    remove(next);
+                } else {
+                    slot.referenced = false;
+                }
+            }
+
+            // every entry looked at was in use, one goes anyway so the map does not outgrow the cap
+            if (slots.size() >= maxSize) {
+                Map.Entry<String, Slot> next = advance();
+                if (next != null) {
+                    remove(next);
+                }
+            }
+        }
+
+        private Map.Entry<String, Slot> advance() {
+            if (!hand.hasNext()) {
+                hand = slots.entrySet().iterator();
+            }
+            return hand.hasNext() ? hand.next() : null;
+        }
+
+        private void remove(Map.Entry<String, Slot> entry) {
+            if (slots.remove(entry.getKey(), entry.getValue())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    private static final class Slot {
+
+        private final Entry entry;
+
+        // set on every hit, cleared when the clock hand passes
+        private volatile boolean referenced;
+
+        private Slot(Entry entry) {
+            this.entry = entry;
+        }
+    }
+
+    public record Entry(String subject, long expiresAt) {
+
+        static final Entry REJECTED = new Entry(null, Long.MAX_VALUE);
+
+        public boolean rejected() {
+            return this == REJECTED;
+        }
+    }
+}
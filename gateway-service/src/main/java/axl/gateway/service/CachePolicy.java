@@ -0,0 +1,24 @@
+package axl.gateway.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachePolicy {
+
+    // one of the service routes, or null for all of them
+    private String route;
+
+    private int ttlSeconds;
+
+    private List<String> varyHeaders;
+
+    private int maxEntryBytes;
+}
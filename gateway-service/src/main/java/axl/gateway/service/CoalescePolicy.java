@@ -0,0 +1,27 @@
+package axl.gateway.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoalescePolicy {
+
+    // one of the service routes, or null for all of them
+    private String route;
+
+    // headers that make two requests different, X-User-Id and Authorization when not set
+    private List<String> varyHeaders;
+
+    private int maxWaiters;
+
+    private long timeoutMs;
+
+    private int maxBodyBytes;
+}
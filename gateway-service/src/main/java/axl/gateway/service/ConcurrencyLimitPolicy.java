@@ -0,0 +1,25 @@
+package axl.gateway.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConcurrencyLimitPolicy {
+
+    // gradient or aimd, zero and missing values fall back to gateway.concurrency-limit
+    private String algorithm;
+
+    private int initialLimit;
+
+    private int minLimit;
+
+    private int maxLimit;
+
+    // part of the limit anonymous requests may fill, the rest is kept for authenticated ones
+    private double anonymousShare;
+}
@@ -0,0 +1,27 @@
+package axl.gateway.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConnectionPoolPolicy {
+
+    // zero keeps the reactor-netty default for every limit below
+    private int maxConnections;
+
+    private int pendingAcquireMaxCount;
+
+    private long pendingAcquireTimeoutMs;
+
+    private long maxIdleTimeMs;
+
+    private long maxLifeTimeMs;
+
+    // http1 or h2c (HTTP/2 with prior knowledge)
+    private String protocol;
+}
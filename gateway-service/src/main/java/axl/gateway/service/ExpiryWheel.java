@@ -0,0 +1,77 @@
+package axl.gateway.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hashed timing wheel of instance deadlines.
+ * Heartbeats only move {@link ServiceInstance#getDeadline()} forward, an instance is re-slotted lazily
+ * when its slot comes up, so the cost of a tick depends on the entries in that slot, not on the registry size.
+ */
+class ExpiryWheel {
+
+    private final long tickMillis;
+
+    private final List<Set<ServiceInstance>> slots;
+
+    private volatile long lastTick;
+
+    ExpiryWheel(long tickMillis, int size, long now) {
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            slots.add(ConcurrentHashMap.newKeySet());
+        }
+        this.lastTick = now / tickMillis;
+    }
+
+    void schedule(ServiceInstance instance) {
+        slots.get(slotOf(tickOf(instance.getDeadline()))).add(instance);
+    }
+
+    synchronized List<ServiceInstance> advance(long now) {
+        long target = now / tickMillis;
+        List<ServiceInstance> expired = new ArrayList<>();
+
+        // a full rotation visits every slot, there is no point in going further
+        long from = Math.max(lastTick + 1, target - slots.size() + 1);
+        for (long tick = from; tick <= target; tick++) {
+            int slot = slotOf(tick);
+
+            Iterator<ServiceInstance> it = slots.get(slot).iterator();
+            while (it.hasNext()) {
+                ServiceInstance instance = it.next();
+                if (instance.isRemoved()) {
+                    it.remove();
+                    continue;
+                }
+
+                long deadline = instance.getDeadline();
+                if (deadline <= now) {
+                    it.remove();
+                    expired.add(instance);
+                } else {
+                    int next = slotOf(tickOf(deadline));
+                    if (next != slot) {
+                        it.remove();
+                        slots.get(next).add(instance);
+                    }
+                }
+            }
+        }
+
+        lastTick = Math.max(lastTick, target);
+        return expired;
+    }
+
+    private long tickOf(long deadline) {
+        return Math.max(Math.ceilDiv(deadline, tickMillis), lastTick + 1);
+    }
+
+    private int slotOf(long tick) {
+        return (int) (tick % slots.size());
+    }
+}
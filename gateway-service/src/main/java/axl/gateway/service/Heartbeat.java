@@ -0,0 +1,13 @@
+package axl.gateway.service;
+
+public record Heartbeat(String name, String instanceId, String hash) {
+
+    public enum Status {
+        OK,
+        UNKNOWN,
+        CHANGED
+    }
+
+    public record Result(String name, String instanceId, Status status) {
+    }
+}
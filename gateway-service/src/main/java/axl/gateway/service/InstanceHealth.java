@@ -0,0 +1,40 @@
+package axl.gateway.service;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mutable health state of one instance, written by active probes and passive outlier detection.
+ */
+@Getter
+@Setter
+public class InstanceHealth {
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    private final AtomicInteger probeFailures = new AtomicInteger();
+
+    private volatile boolean healthy = true;
+
+    private volatile long ejectedUntil;
+
+    private volatile int ejections;
+
+    private volatile long latencyEwmaNanos;
+
+    public boolean isEjected(long now) {
+        return ejectedUntil > now;
+    }
+
+    public boolean isAvailable(long now) {
+        return healthy && !isEjected(now);
+    }
+
+    public void recordLatency(long nanos) {
+        // racy read-modify-write is fine for a smoothed estimate
+        long current = latencyEwmaNanos;
+        latencyEwmaNanos = current == 0 ? nanos : current + (nanos - current) / 8;
+    }
+}
@@ -0,0 +1,39 @@
+package axl.gateway.service;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+import java.time.Instant;
+
+/**
+ * Registered definition of an instance together with its runtime state, as shown by the listing.
+ */
+public record InstanceStatus(
+        @JsonUnwrapped ServiceDefinition definition,
+        String id,
+        boolean provisional,
+        boolean warm,
+        boolean healthy,
+        boolean ejected,
+        Instant ejectedUntil,
+        int ejections,
+        int outstanding
+) {
+
+    public static InstanceStatus of(ServiceInstance instance) {
+        InstanceHealth health = instance.getHealth();
+        long now = System.currentTimeMillis();
+        boolean ejected = health.isEjected(now);
+
+        return new InstanceStatus(
+                instance.getDefinition(),
+                instance.getId(),
+                instance.isProvisional(),
+                instance.isWarm(),
+                health.isHealthy(),
+                ejected,
+                ejected ? Instant.ofEpochMilli(health.getEjectedUntil()) : null,
+                health.getEjections(),
+                instance.getOutstanding().get()
+        );
+    }
+}
@@ -0,0 +1,18 @@
+package axl.gateway.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RateLimitPolicy {
+
+    // permits per second for every user (or client address)
+    private int replenishRate;
+
+    private int burstCapacity;
+}
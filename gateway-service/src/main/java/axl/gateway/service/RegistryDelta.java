@@ -0,0 +1,11 @@
+package axl.gateway.service;
+
+import java.util.List;
+
+/**
+ * Changes since the version a watcher has seen. With {@code reset} the history no longer reaches back
+ * that far, or the gateway has restarted since: the watcher has to list the registry again and continue
+ * from {@code version}, an {@code epoch:version} token.
+ */
+public record RegistryDelta(String version, boolean reset, List<RegistryEvent> events) {
+}
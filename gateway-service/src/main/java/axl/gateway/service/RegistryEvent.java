@@ -0,0 +1,15 @@
+package axl.gateway.service;
+
+/**
+ * One change of the registry, as seen by watchers. Register and update both carry the full instance,
+ * so clients can treat them alike.
+ */
+public record RegistryEvent(long version, Type type, String name, String instanceId, InstanceStatus instance) {
+
+    public enum Type {
+        REGISTER,
+        UPDATE,
+        REMOVE,
+        EXPIRE
+    }
+}
@@ -0,0 +1,15 @@
+package axl.gateway.service;
+
+/**
+ * Notified synchronously, under the registry lock, about structural changes.
+ * Implementations must only hand the change off, never block.
+ */
+public interface RegistryListener {
+
+    void onRegister(ServiceInstance instance);
+
+    void onRemove(ServiceInstance instance);
+
+    default void onHeartbeat(ServiceInstance instance) {
+    }
+}
@@ -0,0 +1,8 @@
+package axl.gateway.service;
+
+import java.util.Map;
+
+public record RegistrySnapshot(long version, Map<String, ServiceEntry> services) {
+
+    public static final RegistrySnapshot EMPTY = new RegistrySnapshot(0, Map.of());
+}
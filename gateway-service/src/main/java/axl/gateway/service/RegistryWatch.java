@@ -0,0 +1,180 @@
+package axl.gateway.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the latest registry changes, so watchers can catch up from the version they have seen
+ * instead of listing the whole registry again.
+ * Events are appended by the listener callbacks, which run under the registry lock, and read under
+ * the same lock: a watcher never sees part of a change, e.g. only some instances of a batch expiry.
+ */
+@Component
+@RequiredArgsConstructor
+public class RegistryWatch implements RegistryListener {
+
+    private final ServiceRegistry registry;
+
+    @Value("${gateway.watch.max-events:10000}")
+    private int maxEvents;
+
+    private final Deque<RegistryEvent> events = new ArrayDeque<>();
+
+    private final Set<ServiceInstance> known = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private final Sinks.Many<Long> changes = Sinks.many().multicast().directBestEffort();
+
+    // versions start over with every run of the gateway, the epoch tells the runs apart
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    // watchers behind this version have missed changes that are no longer, or were never, in the history
+    private long floor;
+
+    private long lastVersion;
+
+    @PostConstruct
+    public void init() {
+        synchronized (registry) {
+            lastVersion = floor = registry.getSnapshot().version();
+            registry.getServices().values().forEach(entry -> known.addAll(entry.instances()));
+            registry.addListener(this);
+        }
+    }
+
+    @Override
+    public void onRegister(ServiceInstance instance) {
+        append(known.add(instance) ? RegistryEvent.Type.REGISTER : RegistryEvent.Type.UPDATE, instance);
+    }
+
+    @Override
+    public void onRemove(ServiceInstance instance) {
+        known.remove(instance);
+        append(instance.getDeadline() <= System.currentTimeMillis()
+                ? RegistryEvent.Type.EXPIRE : RegistryEvent.Type.REMOVE, instance);
+    }
+
+    /**
+     * The changes after the version token a watcher has seen, or a reset when it is from another run
+     * of the gateway or older than the history.
+     */
+    public RegistryDelta since(String token) {
+        long since = versionOf(token);
+        synchronized (registry) {
+            long version = currentVersion();
+            if (since < 0 || since > version || since < floor) {
+                return new RegistryDelta(tokenOf(version), true, List.of());
+            }
+            if (since == version) {
+                return new RegistryDelta(tokenOf(version), false, List.of());
+            }
+
+            List<RegistryEvent> delta = new ArrayList<>();
+            Iterator<RegistryEvent> it = events.descendingIterator();
+            while (it.hasNext()) {
+                RegistryEvent event = it.next();
+                if (event.version() <= since) break;
+                delta.add(event);
+            }
+            Collections.reverse(delta);
+            return new RegistryDelta(tokenOf(version), false, delta);
+        }
+    }
+
+    /**
+     * Completes with the changes since the given version as soon as there are any, or empty after the wait.
+     */
+    public Mono<RegistryDelta> poll(String since, Duration wait) {
+        // subscribed to the changes before the first check, so nothing slips in between
+        return Flux.merge(signals(), Mono.just(0L))
+                .map(ignored -> since(since))
+                .filter(delta -> delta.reset() || !delta.events().isEmpty())
+                .next()
+                .timeout(wait, Mono.fromSupplier(() -> since(since)));
+    }
+
+    /**
+     * Emits the changes since the given version, then every further one as it happens.
+     */
+    public Flux<RegistryDelta> watch(String since) {
+        return Flux.defer(() -> {
+            String[] cursor = {since};
+            return Flux.merge(signals(), Mono.just(0L))
+                    .map(ignored -> {
+                        RegistryDelta delta = since(cursor[0]);
+                        cursor[0] = delta.version();
+                        return delta;
+                    })
+                    .filter(delta -> delta.reset() || !delta.events().isEmpty());
+        });
+    }
+
+    public String currentToken() {
+        return tokenOf(currentVersion());
+    }
+
+    /**
+     * The version as handed to watchers, {@code epoch:version}.
+     */
+    public String tokenOf(long version) {
+        return epoch + ':' + version;
+    }
+
+    public long currentVersion() {
+        synchronized (registry) {
+            long version = registry.getSnapshot().version();
+            if (version != lastVersion) {
+                // changed without notifying listeners, e.g. by a restore
+                floor = lastVersion = version;
+            }
+            return version;
+        }
+    }
+
+    private long versionOf(String token) {
+        if (token == null || token.length() <= epoch.length() + 1
+                || !token.startsWith(epoch) || token.charAt(epoch.length()) != ':') {
+            return -1;
+        }
+        try {
+            return Long.parseLong(token, epoch.length() + 1, token.length(), 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private Flux<Long> signals() {
+        // off the thread holding the registry lock
+        return changes.asFlux().publishOn(Schedulers.parallel());
+    }
+
+    private void append(RegistryEvent.Type type, ServiceInstance instance) {
+        long version = registry.getSnapshot().version();
+        if (version > lastVersion + 1) {
+            floor = version - 1;
+        }
+        lastVersion = version;
+
+        events.addLast(new RegistryEvent(version, type, instance.getDefinition().getName(), instance.getId(),
+                InstanceStatus.of(instance)));
+        while (events.size() > maxEvents) {
+            floor = Math.max(floor, events.removeFirst().version());
+        }
+        changes.tryEmitNext(version);
+    }
+}
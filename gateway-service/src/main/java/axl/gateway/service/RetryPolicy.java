@@ -0,0 +1,26 @@
+package axl.gateway.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RetryPolicy {
+
+    // one of the service routes, or null for all of them
+    private String route;
+
+    // further attempts after a connection failure, each to another instance when there is one
+    private int retries;
+
+    private long backoffMs;
+
+    // percentile of the route latency after which a second request races the first, 0 disables hedging
+    private double hedgePercentile;
+
+    private long hedgeMinDelayMs;
+}
@@ -1,12 +1,24 @@
 package axl.gateway.service;
 
+import axl.gateway.locator.DynamicRouteLocator;
+import axl.gateway.locator.RouteConflict;
 import axl.gateway.openapi.OpenApiAggregator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.gateway.event.RefreshRoutesEvent;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @Slf4j
@@ -15,39 +27,174 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class ServiceController {
 
+    public static final String VERSION_HEADER = "X-Registry-Version";
+
+    private static final Duration MAX_POLL_WAIT = Duration.ofSeconds(60);
+
+    private static final Duration KEEP_ALIVE = Duration.ofSeconds(15);
+
     private final ServiceRegistry registry;
 
+    private final RegistryWatch watch;
+
     private final ApplicationEventPublisher publisher;
 
     private final OpenApiAggregator openApiAggregator;
 
+    private final DynamicRouteLocator routeLocator;
+
     @PostMapping
     public Map<?, ?> add(@RequestBody ServiceDefinition service) {
+        List<RouteConflict> conflicts = List.of();
         boolean changed = registry.register(service);
         if (changed) {
             publisher.publishEvent(new RefreshRoutesEvent(this));
+            openApiAggregator.invalidate();
             log.info("Service `{}` registered/updated", service.getName());
+
+            conflicts = routeLocator.findConflicts(service);
+            for (RouteConflict conflict : conflicts) {
+                log.warn("Service `{}` route `{}` {} route `{}` of service `{}`", service.getName(), conflict.route(),
+                        conflict.duplicate() ? "duplicates" : "overlaps", conflict.conflictingRoute(), conflict.service());
+            }
         } else {
-            openApiAggregator.setDocumentation(null);
             log.info("Service `{}` has a heartbeat", service.getName());
         }
-        return Map.of("status", "200", "message", "Service `" + service.getName() + "` registered");
+
+        if (conflicts.isEmpty()) {
+            return Map.of("status", "200",
+                    "message", "Service `" + service.getName() + "` registered",
+                    "hash", ServiceInstance.hashOf(service));
+        }
+        return Map.of("status", "200",
+                "message", "Service `" + service.getName() + "` registered, some routes are claimed by other services",
+                "hash", ServiceInstance.hashOf(service),
+                "conflicts", conflicts);
+    }
+
+    @PutMapping("/{name}/heartbeat")
+    public ResponseEntity<Map<?, ?>> heartbeat(@PathVariable String name,
+                                               @RequestParam(value = "instance", required = false) String instance,
+                                               @RequestParam(value = "hash", required = false) String hash) {
+        Heartbeat.Status status = registry.heartbeat(name, instance, hash);
+        log.debug("Service `{}` heartbeat: {}", name, status);
+
+        return switch (status) {
+            case OK -> ResponseEntity.ok(Map.of("status", "200",
+                    "message", "Service `" + name + "` has a heartbeat"));
+            case UNKNOWN -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("status", "404",
+                    "message", "Service `" + name + "` is not registered"));
+            case CHANGED -> ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("status", "409",
+                    "message", "Service `" + name + "` definition differs, register it again"));
+        };
+    }
+
+    @PutMapping("/heartbeat")
+    public List<Heartbeat.Result> heartbeats(@RequestBody List<Heartbeat> heartbeats) {
+        List<Heartbeat.Result> results = new ArrayList<>(heartbeats.size());
+        for (Heartbeat heartbeat : heartbeats) {
+            Heartbeat.Status status = registry.heartbeat(heartbeat.name(), heartbeat.instanceId(), heartbeat.hash());
+            results.add(new Heartbeat.Result(heartbeat.name(), heartbeat.instanceId(), status));
+        }
+        log.debug("Batch heartbeat for {} instances", heartbeats.size());
+        return results;
     }
 
     @DeleteMapping("/{name}")
-    public Map<?, ?> delete(@PathVariable String name) {
-        registry.remove(name);
+    public Map<?, ?> delete(@PathVariable String name,
+                            @RequestParam(value = "instance", required = false) String instance) {
+        if (instance != null) {
+            registry.remove(name, instance);
+            log.warn("Service `{}` instance `{}` removed", name, instance);
+        } else {
+            registry.remove(name);
+            log.warn("Service `{}` removed", name);
+        }
         publisher.publishEvent(new RefreshRoutesEvent(this));
-        log.warn("Service `{}` removed", name);
         return Map.of("status", "200", "message", "Service `" + name + "` removed");
     }
 
     @GetMapping
-    public Object list() {
-        log.info("Listing all registered services (count={}):", registry.getServices().size());
-        for (ServiceDefinition service: registry.getServices().values()) {
-            log.info("- service `{}` registered. updated={}", service.getName(), service.getLastUpdated().toString());
+    public ResponseEntity<List<InstanceStatus>> list(@RequestParam(value = "offset", defaultValue = "0") int offset,
+                                                     @RequestParam(value = "limit", defaultValue = "0") int limit) {
+        RegistrySnapshot snapshot = registry.getSnapshot();
+        List<ServiceInstance> instances = instancesOf(snapshot);
+
+        int from = Math.min(Math.max(offset, 0), instances.size());
+        int to = limit > 0 ? Math.min(from + limit, instances.size()) : instances.size();
+        List<InstanceStatus> services = instances.subList(from, to).stream()
+                .map(InstanceStatus::of)
+                .toList();
+        log.debug("Listing {} of {} registered instances", services.size(), instances.size());
+
+        return ResponseEntity.ok()
+                .header(VERSION_HEADER, watch.tokenOf(snapshot.version()))
+                .header("X-Total-Count", String.valueOf(instances.size()))
+                .body(services);
+    }
+
+    /**
+     * The whole listing as newline delimited JSON, written as it is produced.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<InstanceStatus>> stream() {
+        RegistrySnapshot snapshot = registry.getSnapshot();
+        return ResponseEntity.ok()
+                .header(VERSION_HEADER, watch.tokenOf(snapshot.version()))
+                .body(Flux.fromIterable(instancesOf(snapshot)).map(InstanceStatus::of));
+    }
+
+    /**
+     * Long-poll: answers as soon as the registry has moved past {@code since}, or with no events after {@code waitMs}.
+     */
+    @GetMapping("/watch")
+    public Mono<RegistryDelta> poll(@RequestParam(value = "since", required = false) String since,
+                                    @RequestParam(value = "waitMs", defaultValue = "30000") long waitMs) {
+        Duration wait = Duration.ofMillis(Math.max(0, waitMs));
+        return watch.poll(since != null ? since : watch.currentToken(),
+                wait.compareTo(MAX_POLL_WAIT) > 0 ? MAX_POLL_WAIT : wait);
+    }
+
+    /**
+     * Server-Sent Events: one event per change, the last one of each registry version with the version as id,
+     * so a reconnecting client resumes through {@code Last-Event-ID}. A {@code reset} event asks the client to list the registry again.
+     */
+    @GetMapping(value = "/watch/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<RegistryEvent>> events(@RequestParam(value = "since", required = false) String since,
+                                                       @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        String from = since != null ? since : lastEventId != null ? lastEventId : watch.currentToken();
+
+        Flux<ServerSentEvent<RegistryEvent>> changes = watch.watch(from)
+                .concatMapIterable(delta -> delta.reset()
+                        ? List.of(ServerSentEvent.<RegistryEvent>builder().id(delta.version()).event("reset").build())
+                        : toEvents(delta.events()));
+        Flux<ServerSentEvent<RegistryEvent>> keepAlive = Flux.interval(KEEP_ALIVE)
+                .map(tick -> ServerSentEvent.<RegistryEvent>builder().comment("keep-alive").build());
+        return Flux.merge(changes, keepAlive);
+    }
+
+    /**
+     * Only the last event of a version carries the id: one version may cover several events, e.g. a batch expiry,
+     * and a client resuming from the middle of it would skip the rest.
+     */
+    private List<ServerSentEvent<RegistryEvent>> toEvents(List<RegistryEvent> events) {
+        List<ServerSentEvent<RegistryEvent>> result = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            RegistryEvent event = events.get(i);
+            ServerSentEvent.Builder<RegistryEvent> builder = ServerSentEvent.builder(event)
+                    .event(event.type().name().toLowerCase(Locale.ROOT));
+            // a delta always holds whole versions, so its last event closes one
+            if (i == events.size() - 1 || events.get(i + 1).version() != event.version()) {
+                builder.id(watch.tokenOf(event.version()));
+            }
+            result.add(builder.build());
         }
-        return registry.getServices().values();
+        return result;
+    }
+
+    private static List<ServiceInstance> instancesOf(RegistrySnapshot snapshot) {
+        return snapshot.services().values().stream()
+                .flatMap(entry -> entry.instances().stream())
+                .toList();
     }
 }
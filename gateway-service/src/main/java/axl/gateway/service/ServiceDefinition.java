@@ -14,14 +14,36 @@ public class ServiceDefinition {
 
     private String name;
 
+    private String instanceId;
+
     private List<String> routes;
 
     private String uri;
 
     private String openApiUrl;
 
+    private String healthCheckUrl;
+
     private int ttlSeconds;
 
+    private String balancer;
+
+    private List<CachePolicy> cache;
+
+    private List<CoalescePolicy> coalesce;
+
+    private List<RetryPolicy> retry;
+
+    private RateLimitPolicy rateLimit;
+
+    private ConnectionPoolPolicy pool;
+
+    private SlowStartPolicy slowStart;
+
+    private ConcurrencyLimitPolicy concurrencyLimit;
+
+    // start time of the instance process, set by the gateway-client
+    private long startedAt;
+
     private Instant lastUpdated;
 }
-
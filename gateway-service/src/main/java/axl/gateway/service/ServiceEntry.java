@@ -0,0 +1,10 @@
+package axl.gateway.service;
+
+import java.util.List;
+
+/**
+ * Immutable view of one service in a {@link RegistrySnapshot}.
+ * {@code revision} is the registry version at which the routes of the service last changed.
+ */
+public record ServiceEntry(String name, long revision, List<String> routes, List<ServiceInstance> instances) {
+}
@@ -0,0 +1,80 @@
+package axl.gateway.service;
+
+import lombok.Getter;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Getter
+public class ServiceInstance {
+
+    private final String id;
+
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    private final InstanceHealth health = new InstanceHealth();
+
+    private volatile ServiceDefinition definition;
+
+    private volatile URI uri;
+
+    private volatile String hash;
+
+    private volatile long deadline;
+
+    private volatile boolean removed;
+
+    private volatile boolean provisional;
+
+    private volatile long registeredAt = System.currentTimeMillis();
+
+    // false while the instance is in its slow-start window
+    private volatile boolean warm;
+
+    public ServiceInstance(String id, ServiceDefinition definition) {
+        this.id = id;
+        update(definition);
+    }
+
+    void update(ServiceDefinition definition) {
+        ServiceDefinition previous = this.definition;
+        if (previous != null && previous.getStartedAt() != definition.getStartedAt()) {
+            // a new process behind the same id, e.g. restarted in place, is cold again
+            this.registeredAt = System.currentTimeMillis();
+            this.warm = false;
+        }
+        this.definition = definition;
+        this.uri = URI.create(definition.getUri());
+        this.hash = hashOf(definition);
+        this.deadline = deadlineOf(definition, definition.getLastUpdated());
+        this.provisional = false;
+    }
+
+    void touch(Instant now) {
+        definition.setLastUpdated(now);
+        this.deadline = deadlineOf(definition, now);
+        this.provisional = false;
+    }
+
+    void markProvisional() {
+        this.provisional = true;
+    }
+
+    void markRemoved() {
+        this.removed = true;
+    }
+
+    public void markWarm() {
+        this.warm = true;
+    }
+
+    private static long deadlineOf(ServiceDefinition definition, Instant lastUpdated) {
+        return lastUpdated.toEpochMilli() + definition.getTtlSeconds() * 1000L;
+    }
+
+    public static String hashOf(ServiceDefinition definition) {
+        // lastUpdated is excluded from hashCode, so the hash only changes with the definition itself
+        return Integer.toHexString(definition.hashCode());
+    }
+}
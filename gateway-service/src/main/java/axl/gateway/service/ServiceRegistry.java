@@ -1,34 +1,228 @@
 package axl.gateway.service;
 
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-@Getter
 @Component
-@RequiredArgsConstructor
 public class ServiceRegistry {
 
-    private final Map<String, ServiceDefinition> services = new ConcurrentHashMap<>();
+    @Getter
+    private volatile RegistrySnapshot snapshot = RegistrySnapshot.EMPTY;
 
-    public boolean register(ServiceDefinition service) {
-        ServiceDefinition old = services.get(service.getName());
+    private final ExpiryWheel expiryWheel;
 
+    private final List<RegistryListener> listeners = new CopyOnWriteArrayList<>();
+
+    public ServiceRegistry(@Value("${gateway.expiry.tick-ms:100}") long tickMillis,
+                           @Value("${gateway.expiry.wheel-size:600}") int wheelSize) {
+        this.expiryWheel = new ExpiryWheel(tickMillis, wheelSize, System.currentTimeMillis());
+    }
+
+    public synchronized boolean register(ServiceDefinition service) {
+        String id = instanceIdOf(service);
         service.setLastUpdated(Instant.now());
-        services.put(service.getName(), service);
 
-        return !service.equals(old);
+        List<ServiceInstance> instances = getInstances(service.getName());
+        for (ServiceInstance instance : instances) {
+            if (instance.getId().equals(id)) {
+                boolean changed = !service.equals(instance.getDefinition());
+                instance.update(service);
+                if (changed) {
+                    // the ttl may have become shorter than the slot the instance is waiting in
+                    expiryWheel.schedule(instance);
+                    publish(Map.of(service.getName(), instances));
+                    listeners.forEach(listener -> listener.onRegister(instance));
+                } else {
+                    listeners.forEach(listener -> listener.onHeartbeat(instance));
+                }
+                return changed;
+            }
+        }
+
+        ServiceInstance instance = new ServiceInstance(id, service);
+        List<ServiceInstance> updated = new ArrayList<>(instances);
+        updated.add(instance);
+        publish(Map.of(service.getName(), updated));
+        expiryWheel.schedule(instance);
+        listeners.forEach(listener -> listener.onRegister(instance));
+        return true;
+    }
+
+    /**
+     * Re-inserts definitions recovered after a restart. They stay provisional, with a fresh TTL,
+     * until the service confirms them by a registration or a heartbeat.
+     */
+    public synchronized void restore(Collection<ServiceDefinition> services) {
+        Instant now = Instant.now();
+        Map<String, List<ServiceInstance>> changes = new LinkedHashMap<>();
+
+        for (ServiceDefinition service : services) {
+            String id = instanceIdOf(service);
+            if (findInstance(service.getName(), id) != null) continue;
+
+            service.setLastUpdated(now);
+            ServiceInstance instance = new ServiceInstance(id, service);
+            instance.markProvisional();
+            // it served traffic before the gateway restarted
+            instance.markWarm();
+
+            changes.computeIfAbsent(service.getName(), k -> new ArrayList<>(getInstances(k))).add(instance);
+            expiryWheel.schedule(instance);
+        }
+
+        if (!changes.isEmpty()) {
+            publish(changes);
+        }
+    }
+
+    public void addListener(RegistryListener listener) {
+        listeners.add(listener);
+    }
+
+    public Heartbeat.Status heartbeat(String name, String instanceId, String hash) {
+        ServiceInstance instance = findInstance(name, instanceId);
+        if (instance == null) {
+            return Heartbeat.Status.UNKNOWN;
+        }
+        if (hash != null && !hash.equals(instance.getHash())) {
+            return Heartbeat.Status.CHANGED;
+        }
+
+        instance.touch(Instant.now());
+        listeners.forEach(listener -> listener.onHeartbeat(instance));
+        return Heartbeat.Status.OK;
+    }
+
+    public synchronized void remove(String name) {
+        if (snapshot.services().containsKey(name)) {
+            List<ServiceInstance> removed = getInstances(name);
+            removed.forEach(ServiceInstance::markRemoved);
+            publish(Map.of(name, List.of()));
+            removed.forEach(instance -> listeners.forEach(listener -> listener.onRemove(instance)));
+        }
+    }
+
+    public synchronized boolean remove(String name, String instanceId) {
+        ServiceInstance instance = findInstance(name, instanceId);
+        if (instance == null) return false;
+
+        return !removeAll(List.of(instance)).isEmpty();
+    }
+
+    /**
+     * Removes every instance whose deadline has passed, with a single snapshot update.
+     */
+    public synchronized List<ServiceInstance> expire() {
+        long now = System.currentTimeMillis();
+        List<ServiceInstance> expired = expiryWheel.advance(now).stream()
+                // a heartbeat may have arrived while the wheel was turning
+                .filter(instance -> instance.getDeadline() <= now)
+                .toList();
+
+        return expired.isEmpty() ? expired : removeAll(expired);
     }
 
-    public void remove(String name) {
-        services.remove(name);
+    public Map<String, ServiceEntry> getServices() {
+        return snapshot.services();
     }
 
     public ServiceDefinition get(String name) {
-        return services.get(name);
+        List<ServiceInstance> instances = getInstances(name);
+        return instances.isEmpty() ? null : instances.get(0).getDefinition();
+    }
+
+    public List<ServiceInstance> getInstances(String name) {
+        ServiceEntry entry = snapshot.services().get(name);
+        return entry != null ? entry.instances() : List.of();
+    }
+
+    public ServiceInstance findInstance(String name, String instanceId) {
+        List<ServiceInstance> instances = getInstances(name);
+        if (instanceId == null) {
+            return instances.size() == 1 ? instances.get(0) : null;
+        }
+        for (ServiceInstance instance : instances) {
+            if (instance.getId().equals(instanceId)) {
+                return instance;
+            }
+        }
+        return null;
+    }
+
+    public List<ServiceDefinition> getDefinitions() {
+        return snapshot.services().values().stream()
+                .flatMap(entry -> entry.instances().stream())
+                .map(ServiceInstance::getDefinition)
+                .toList();
+    }
+
+    public static String instanceIdOf(ServiceDefinition service) {
+        if (service.getInstanceId() != null && !service.getInstanceId().isEmpty()) {
+            return service.getInstanceId();
+        }
+        return service.getUri();
+    }
+
+    private List<ServiceInstance> removeAll(Collection<ServiceInstance> removed) {
+        Map<String, List<ServiceInstance>> changes = new LinkedHashMap<>();
+        List<ServiceInstance> result = new ArrayList<>();
+
+        for (ServiceInstance instance : removed) {
+            String name = instance.getDefinition().getName();
+            List<ServiceInstance> instances = changes.computeIfAbsent(name, k -> new ArrayList<>(getInstances(k)));
+            if (instances.remove(instance)) {
+                instance.markRemoved();
+                result.add(instance);
+            }
+        }
+
+        if (!result.isEmpty()) {
+            publish(changes);
+            result.forEach(instance -> listeners.forEach(listener -> listener.onRemove(instance)));
+        }
+        return result;
+    }
+
+    private void publish(Map<String, List<ServiceInstance>> changes) {
+        RegistrySnapshot current = snapshot;
+        long version = current.version() + 1;
+
+        Map<String, ServiceEntry> services = new LinkedHashMap<>(current.services());
+        changes.forEach((name, instances) -> {
+            if (instances.isEmpty()) {
+                services.remove(name);
+                return;
+            }
+
+            List<String> routes = routesOf(instances);
+            ServiceEntry previous = services.get(name);
+            long revision = previous != null && previous.routes().equals(routes) ? previous.revision() : version;
+            services.put(name, new ServiceEntry(name, revision, routes, List.copyOf(instances)));
+        });
+
+        snapshot = new RegistrySnapshot(version, Collections.unmodifiableMap(services));
+    }
+
+    private static List<String> routesOf(List<ServiceInstance> instances) {
+        // instances of one service may be mid-deploy with different route sets
+        Set<String> routes = new LinkedHashSet<>();
+        for (ServiceInstance instance : instances) {
+            if (instance.getDefinition().getRoutes() != null) {
+                routes.addAll(instance.getDefinition().getRoutes());
+            }
+        }
+        return List.copyOf(routes);
     }
 }
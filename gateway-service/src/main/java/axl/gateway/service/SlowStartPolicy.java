@@ -0,0 +1,27 @@
+package axl.gateway.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlowStartPolicy {
+
+    // how long a new instance takes to reach full weight
+    private int windowSeconds;
+
+    // share of the full weight a new instance starts with, 0.1 when not set
+    private double minWeight;
+
+    // path requested to warm the instance up, / when only connections are to be opened
+    private String warmupPath;
+
+    private int warmupRequests;
+
+    // upstream connections opened ahead of the first real request
+    private int preconnect;
+}
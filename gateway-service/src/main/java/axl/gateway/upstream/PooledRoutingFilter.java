@@ -0,0 +1,49 @@
+package axl.gateway.upstream;
+
+import axl.gateway.balancer.LoadBalancerFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.List;
+
+/**
+ * Routing filter that sends requests of services with a dedicated pool through that pool.
+ * It runs right before the default {@link NettyRoutingFilter}, which then sees the exchange as already routed;
+ * services without a pool policy keep using the shared client.
+ */
+@Component
+public class PooledRoutingFilter extends NettyRoutingFilter {
+
+    private final UpstreamPools pools;
+
+    public PooledRoutingFilter(HttpClient httpClient,
+                               ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider,
+                               HttpClientProperties properties,
+                               UpstreamPools pools) {
+        super(httpClient, headersFiltersProvider, properties);
+        this.pools = pools;
+    }
+
+    @Override
+    protected HttpClient getHttpClient(Route route, ServerWebExchange exchange) {
+        Object service = route.getMetadata().get(LoadBalancerFilter.SERVICE_METADATA);
+        if (service instanceof String name) {
+            HttpClient client = pools.clientFor(name);
+            if (client != null) {
+                return client;
+            }
+        }
+        return super.getHttpClient(route, exchange);
+    }
+
+    @Override
+    public int getOrder() {
+        return super.getOrder() - 1;
+    }
+}
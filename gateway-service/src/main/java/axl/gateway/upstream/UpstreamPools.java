@@ -0,0 +1,213 @@
+package axl.gateway.upstream;
+
+import axl.gateway.service.ConnectionPoolPolicy;
+import axl.gateway.service.RegistryListener;
+import axl.gateway.service.ServiceDefinition;
+import axl.gateway.service.ServiceInstance;
+import axl.gateway.service.ServiceRegistry;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.transport.ProxyProvider;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Isolated connection pools for services that declare a {@link ConnectionPoolPolicy}.
+ * Pools are created on first use, replaced when the policy changes and disposed once the last instance
+ * of the service is gone, so one slow service can no longer starve the shared pool.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UpstreamPools implements RegistryListener {
+
+    // requests still running on a replaced pool get this long to finish
+    private static final Duration RETIRE_GRACE = Duration.ofSeconds(30);
+
+    private final ServiceRegistry registry;
+
+    private final HttpClientProperties properties;
+
+    private final ObjectProvider<HttpClientSslConfigurer> sslConfigurer;
+
+    private final ObjectProvider<HttpClientCustomizer> customizers;
+
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        registry.addListener(this);
+    }
+
+    /**
+     * @return client bound to the dedicated pool of the service, or null when it uses the shared pool
+     */
+    public HttpClient clientFor(String service) {
+        ServiceDefinition definition = registry.get(service);
+        ConnectionPoolPolicy policy = definition != null ? definition.getPool() : null;
+        if (policy == null) {
+            Pool removed = pools.remove(service);
+            if (removed != null) retire(removed);
+            return null;
+        }
+
+        Pool pool = pools.get(service);
+        if (pool != null && pool.policy().equals(policy)) {
+            return pool.client();
+        }
+
+        return pools.compute(service, (name, existing) -> {
+            if (existing != null && existing.policy().equals(policy)) return existing;
+            if (existing != null) retire(existing);
+            return create(name, policy);
+        }).client();
+    }
+
+    public Collection<Pool> getPools() {
+        return pools.values();
+    }
+
+    @Override
+    public void onRegister(ServiceInstance instance) {
+        // policy changes are picked up lazily by clientFor
+    }
+
+    @Override
+    public void onRemove(ServiceInstance instance) {
+        String service = instance.getDefinition().getName();
+        if (registry.getInstances(service).isEmpty()) {
+            Pool removed = pools.remove(service);
+            if (removed != null) retire(removed);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        pools.values().forEach(pool -> pool.provider().dispose());
+        pools.clear();
+    }
+
+    private Pool create(String service, ConnectionPoolPolicy policy) {
+        Map<SocketAddress, ConnectionPoolMetrics> metrics = new ConcurrentHashMap<>();
+
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("upstream-" + service)
+                .metrics(true, () -> new ConnectionProvider.MeterRegistrar() {
+                    @Override
+                    public void registerMetrics(String poolName, String id, SocketAddress remoteAddress,
+                                                ConnectionPoolMetrics poolMetrics) {
+                        metrics.put(remoteAddress, poolMetrics);
+                    }
+
+                    @Override
+                    public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+                        metrics.remove(remoteAddress);
+                    }
+                });
+        if (policy.getMaxConnections() > 0) {
+            builder.maxConnections(policy.getMaxConnections());
+        }
+        if (policy.getPendingAcquireMaxCount() > 0) {
+            builder.pendingAcquireMaxCount(policy.getPendingAcquireMaxCount());
+        }
+        if (policy.getPendingAcquireTimeoutMs() > 0) {
+            builder.pendingAcquireTimeout(Duration.ofMillis(policy.getPendingAcquireTimeoutMs()));
+        }
+        if (policy.getMaxIdleTimeMs() > 0) {
+            builder.maxIdleTime(Duration.ofMillis(policy.getMaxIdleTimeMs()));
+        }
+        if (policy.getMaxLifeTimeMs() > 0) {
+            builder.maxLifeTime(Duration.ofMillis(policy.getMaxLifeTimeMs()));
+        }
+        ConnectionProvider provider = builder.build();
+
+        HttpClient client = configure(HttpClient.create(provider)
+                .protocol("h2c".equalsIgnoreCase(policy.getProtocol()) ? HttpProtocol.H2C : HttpProtocol.HTTP11));
+
+        log.info("Created connection pool for service `{}`: {}", service, policy);
+        return new Pool(service, policy, provider, client, metrics);
+    }
+
+    /**
+     * Applies the spring.cloud.gateway.httpclient settings and customizers the shared client gets
+     * from Spring Cloud's HttpClientFactory, so a dedicated pool changes pooling only, not TLS or proxying.
+     */
+    private HttpClient configure(HttpClient client) {
+        client = client.httpResponseDecoder(spec -> {
+            if (properties.getMaxHeaderSize() != null) {
+                spec.maxHeaderSize((int) properties.getMaxHeaderSize().toBytes());
+            }
+            if (properties.getMaxInitialLineLength() != null) {
+                spec.maxInitialLineLength((int) properties.getMaxInitialLineLength().toBytes());
+            }
+            return spec;
+        });
+        if (properties.getConnectTimeout() != null) {
+            client = client.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, properties.getConnectTimeout());
+        }
+        if (properties.isCompression()) {
+            client = client.compress(true);
+        }
+        if (properties.isWiretap()) {
+            client = client.wiretap(true);
+        }
+
+        HttpClientProperties.Proxy proxy = properties.getProxy();
+        if (proxy.getHost() != null && !proxy.getHost().isEmpty()) {
+            client = client.proxy(spec -> {
+                ProxyProvider.Builder builder = spec.type(proxy.getType()).host(proxy.getHost());
+                if (proxy.getPort() != null) {
+                    builder.port(proxy.getPort());
+                }
+                if (proxy.getUsername() != null && !proxy.getUsername().isEmpty()) {
+                    builder.username(proxy.getUsername());
+                }
+                if (proxy.getPassword() != null && !proxy.getPassword().isEmpty()) {
+                    builder.password(username -> proxy.getPassword());
+                }
+                if (proxy.getNonProxyHostsPattern() != null && !proxy.getNonProxyHostsPattern().isEmpty()) {
+                    builder.nonProxyHosts(proxy.getNonProxyHostsPattern());
+                }
+            });
+        }
+
+        HttpClientSslConfigurer ssl = sslConfigurer.getIfAvailable();
+        if (ssl != null) {
+            client = ssl.configureSsl(client);
+        }
+        for (HttpClientCustomizer customizer : customizers.orderedStream().toList()) {
+            client = customizer.customize(client);
+        }
+        return client;
+    }
+
+    private static void retire(Pool pool) {
+        log.info("Retiring connection pool for service `{}`", pool.service());
+        Mono.delay(RETIRE_GRACE)
+                .then(pool.provider().disposeLater())
+                .subscribe();
+    }
+
+    public record Pool(String service,
+                       ConnectionPoolPolicy policy,
+                       ConnectionProvider provider,
+                       HttpClient client,
+                       Map<SocketAddress, ConnectionPoolMetrics> metrics) {
+    }
+}